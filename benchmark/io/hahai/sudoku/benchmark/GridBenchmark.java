@@ -0,0 +1,60 @@
+package io.hahai.sudoku.benchmark;
+
+import io.hahai.sudoku.grid.Cell;
+import io.hahai.sudoku.grid.Grid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridBenchmark {
+
+    @Param({"EASY", "HARD"})
+    public PuzzleCorpus corpus;
+
+    private Grid grid;
+    private int playableCell;
+
+    @Setup public void setUp() {
+        grid = new Grid(new StringReader(corpus.puzzle()));
+        playableCell = corpus.puzzle().indexOf('.');
+    }
+
+    @Benchmark public List<Cell> play() {
+        return grid.play(playableCell, (grid.getValueAt(playableCell) % grid.dimension()) + 1);
+    }
+
+    @Benchmark public List<Integer> playableOptions() {
+        return grid.playableOptions(playableCell);
+    }
+
+    @Benchmark public int candidateMask() {
+        return grid.candidateMask(playableCell);
+    }
+
+    @Benchmark public boolean isGridCompleteAndCorrect() {
+        return grid.isGridCompleteAndCorrect();
+    }
+
+    @Benchmark public Grid parse() {
+        return new Grid(new StringReader(corpus.puzzle()));
+    }
+
+}
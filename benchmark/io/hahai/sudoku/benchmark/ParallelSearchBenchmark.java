@@ -0,0 +1,77 @@
+package io.hahai.sudoku.benchmark;
+
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.solver.BacktrackingSolver;
+import io.hahai.sudoku.solver.CandidateState;
+import io.hahai.sudoku.solver.ConstraintPropagator;
+import io.hahai.sudoku.solver.ParallelSearchSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ParallelSearchSolver} against the sequential {@link BacktrackingSolver} it splits work for, both with
+ * the standard propagation and both searching from a loaded {@link CandidateState}, so neither pays for a
+ * {@link Grid}. A parallelism of 1 shows what the fork/join machinery costs on its own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    @Param({"HARD", "PATHOLOGICAL"})
+    public PuzzleCorpus corpus;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private ParallelSearchSolver parallel;
+    private BacktrackingSolver sequential;
+    private CandidateState puzzle;
+    private CandidateState state;
+
+    @Setup public void setUp() {
+        pool = new ForkJoinPool(parallelism);
+        parallel = new ParallelSearchSolver(pool);
+        sequential = new BacktrackingSolver(ConstraintPropagator.standard());
+        Grid grid = new Grid(new StringReader(corpus.puzzle()));
+        puzzle = new CandidateState(grid.topology());
+        puzzle.load(grid);
+        state = new CandidateState(puzzle);
+    }
+
+    @Setup(Level.Invocation) public void freshState() {
+        state.copyFrom(puzzle);
+    }
+
+    @TearDown public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark public int[] parallelSearch() {
+        return parallel.solve(state);
+    }
+
+    @Benchmark public boolean backtracking() {
+        return sequential.solve(state);
+    }
+
+}
@@ -0,0 +1,23 @@
+package io.hahai.sudoku.benchmark;
+
+/**
+ * Fixed 9x9 puzzles by difficulty, so results stay comparable between runs.
+ */
+public enum PuzzleCorpus {
+
+    EASY("..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3.."),
+    MEDIUM("4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......"),
+    HARD("8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4.."),
+    PATHOLOGICAL("..............3.85..1.2.......5.7.....4...1...9.......5......73..2.1........4...9");
+
+    private final String puzzle;
+
+    PuzzleCorpus(String puzzle) {
+        this.puzzle = puzzle;
+    }
+
+    public String puzzle() {
+        return puzzle;
+    }
+
+}
@@ -0,0 +1,79 @@
+package io.hahai.sudoku.benchmark;
+
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.solver.BacktrackingSolver;
+import io.hahai.sudoku.solver.ConstraintPropagator;
+import io.hahai.sudoku.solver.DancingLinksSolver;
+import io.hahai.sudoku.solver.MultiPassPlayWhenOneOptionSolver;
+import io.hahai.sudoku.solver.ParallelSearchSolver;
+import io.hahai.sudoku.solver.PlayWhenOneOptionSolver;
+import io.hahai.sudoku.solver.PropagatingSolver;
+import io.hahai.sudoku.solver.Solver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Every {@link Solver} through {@link Grid#applySolvers(Solver...)}, each invocation on a freshly loaded grid
+ * whose loading is not measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    public enum Solvers {
+        PLAY_WHEN_ONE_OPTION(PlayWhenOneOptionSolver::new),
+        MULTI_PASS_PLAY_WHEN_ONE_OPTION(MultiPassPlayWhenOneOptionSolver::new),
+        PROPAGATING(PropagatingSolver::new),
+        BACKTRACKING(BacktrackingSolver::new),
+        PROPAGATING_BACKTRACKING(() -> new BacktrackingSolver(ConstraintPropagator.standard())),
+        DANCING_LINKS(DancingLinksSolver::new),
+        PARALLEL_SEARCH(ParallelSearchSolver::new);
+
+        private final Supplier<Solver> factory;
+
+        Solvers(Supplier<Solver> factory) {
+            this.factory = factory;
+        }
+    }
+
+    @Param({"EASY", "MEDIUM", "HARD", "PATHOLOGICAL"})
+    public PuzzleCorpus corpus;
+
+    @Param
+    public Solvers solvers;
+
+    private Solver solver;
+    private Grid grid;
+
+    @Setup public void setUp() {
+        solver = solvers.factory.get();
+    }
+
+    @Setup(Level.Invocation) public void freshGrid() {
+        grid = new Grid(new StringReader(corpus.puzzle()));
+    }
+
+    @Benchmark public Grid solve() {
+        grid.applySolvers(solver);
+        return grid;
+    }
+
+}
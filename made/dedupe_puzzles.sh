@@ -0,0 +1,3 @@
+#!/bin/sh
+java -classpath "libs/*" io.hahai.sudoku.canonical.SudokuDedupe "$@"
+        
\ No newline at end of file
@@ -0,0 +1,3 @@
+#!/bin/sh
+java -classpath "libs/*" io.hahai.sudoku.generator.SudokuGenerator "$@"
+        
\ No newline at end of file
@@ -0,0 +1,5 @@
+#!/bin/sh
+kill -9 `cat running_pids`
+rm -f running_pids
+rm *.log
+        
\ No newline at end of file
@@ -0,0 +1,3 @@
+#!/bin/sh
+java -classpath "libs/*" io.hahai.sudoku.rating.SudokuRater "$@"
+        
\ No newline at end of file
@@ -0,0 +1,3 @@
+#!/bin/sh
+nohup java -classpath "libs/*" io.hahai.sudoku.server.SudokuWebServer > sudoku.log 2>&1& echo $! >> running_pids
+        
\ No newline at end of file
@@ -0,0 +1,3 @@
+#!/bin/sh
+java -classpath "libs/*" io.hahai.sudoku.batch.SudokuBatch "$@"
+        
\ No newline at end of file
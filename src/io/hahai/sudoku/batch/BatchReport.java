@@ -0,0 +1,38 @@
+package io.hahai.sudoku.batch;
+
+import java.util.concurrent.TimeUnit;
+
+public final class BatchReport {
+
+    private final long puzzles;
+    private final long solved;
+    private final long elapsedNanos;
+
+    public BatchReport(long puzzles, long solved, long elapsedNanos) {
+        this.puzzles = puzzles;
+        this.solved = solved;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long puzzles() {
+        return puzzles;
+    }
+
+    public long solved() {
+        return solved;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double puzzlesPerSecond() {
+        return elapsedNanos == 0 ? 0 : puzzles * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override public String toString() {
+        return String.format("Solved %d of %d puzzles in %d ms (%.0f puzzles/sec)", solved, puzzles,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), puzzlesPerSecond());
+    }
+
+}
@@ -0,0 +1,305 @@
+package io.hahai.sudoku.batch;
+
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves a stream of one-line puzzles ({@code .} or {@code 0} for blanks) on a fixed pool of workers and writes
+ * each solution, in input order, on its own line. Lines that are not puzzles of the stream's dimension, or
+ * that have no solution, are written back unchanged. The dimension is taken from the first line that is a
+ * puzzle of a dimension up to 9, so headers and comments before it are passed through.
+ * Each worker keeps its solver state for the life of the engine, and the buffers solved chunks are written
+ * through are reused.
+ */
+public final class BatchSolvingEngine implements AutoCloseable {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    /**
+     * The dimension assumed for a file with lines but none of them a puzzle.
+     */
+    static final int DEFAULT_DIMENSION = 9;
+
+    private final int workers;
+    private final int batchSize;
+    private final ExecutorService executor;
+    private final BlockingQueue<PuzzleWorker> idleWorkers;
+    private final List<Slice> slices;
+    private GridTopology topology;
+
+    public BatchSolvingEngine(int workers) {
+        this(workers, DEFAULT_BATCH_SIZE);
+    }
+
+    public BatchSolvingEngine(int workers, int batchSize) {
+        if (workers < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Workers and batch size must be positive");
+        }
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.executor = Executors.newFixedThreadPool(workers);
+        this.idleWorkers = new ArrayBlockingQueue<>(workers);
+        this.slices = new ArrayList<>(workers);
+        for (int worker = 0; worker < workers; worker++) {
+            slices.add(new Slice(worker));
+        }
+    }
+
+    public BatchReport solve(Reader in, Writer out) throws IOException {
+        long start = System.nanoTime();
+        LineBatch batch = new LineBatch(batchSize);
+        long puzzles = 0;
+        long solved = 0;
+        while (batch.fill(in)) {
+            if (topology == null) {
+                int dimension = firstPuzzleDimension(batch);
+                if (dimension > 0) {
+                    prepareFor(dimension);
+                }
+            }
+            if (topology != null) {
+                for (Slice slice : slices) {
+                    slice.batch = batch;
+                }
+                for (Integer count : await(slices)) {
+                    solved += count;
+                }
+            }
+            puzzles += batch.size();
+            batch.writeTo(out);
+        }
+        out.flush();
+        return new BatchReport(puzzles, solved, System.nanoTime() - start);
+    }
+
+    /**
+     * Solves a puzzle file through {@link MappedPuzzleFile}, parsing its chunks in parallel, sized for the
+     * number of workers. Line endings and blank lines are copied through to the output as they are, and a file
+     * of nothing else is copied through without solving.
+     */
+    public BatchReport solve(Path in, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        long puzzles = 0;
+        long solved = 0;
+        try (MappedPuzzleFile file = MappedPuzzleFile.openForWorkers(in, workers)) {
+            int dimension = firstPuzzleDimension(file);
+            if (dimension == 0) {
+                copy(file, out);
+                return new BatchReport(0, 0, System.nanoTime() - start);
+            }
+            if (topology == null) {
+                prepareFor(dimension);
+            }
+            Deque<Future<ChunkResult>> inFlight = new ArrayDeque<>();
+            Deque<ChunkResult> spare = new ArrayDeque<>();
+            for (PuzzleChunk chunk : file.chunks()) {
+                if (inFlight.size() == 2 * workers) {
+                    ChunkResult result = await(inFlight.removeFirst());
+                    out.write(result.bytes, 0, result.length);
+                    puzzles += result.puzzles;
+                    solved += result.solved;
+                    spare.push(result);
+                }
+                ChunkResult result = spare.isEmpty() ? new ChunkResult() : spare.pop();
+                inFlight.addLast(executor.submit(new ChunkTask(chunk, result)));
+            }
+            while (!inFlight.isEmpty()) {
+                ChunkResult result = await(inFlight.removeFirst());
+                out.write(result.bytes, 0, result.length);
+                puzzles += result.puzzles;
+                solved += result.solved;
+            }
+        }
+        out.flush();
+        return new BatchReport(puzzles, solved, System.nanoTime() - start);
+    }
+
+    @Override public void close() {
+        executor.shutdown();
+    }
+
+    private static int firstPuzzleDimension(LineBatch batch) {
+        for (int line = 0; line < batch.size(); line++) {
+            int dimension = PuzzleWorker.dimensionOf(batch.data(), batch.start(line), batch.length(line));
+            if (dimension > 0) {
+                return dimension;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the dimension of the first puzzle in the file, {@link #DEFAULT_DIMENSION} when no line is a puzzle,
+     * or 0 when every line is blank
+     */
+    private static int firstPuzzleDimension(MappedPuzzleFile file) {
+        boolean blank = true;
+        for (PuzzleChunk chunk : file.chunks()) {
+            for (int start = 0; start < chunk.size(); ) {
+                int end = chunk.lineEnd(start);
+                int length = chunk.contentLength(start, end);
+                if (length > 0) {
+                    int dimension = PuzzleWorker.dimensionOf(chunk, start, length);
+                    if (dimension > 0) {
+                        return dimension;
+                    }
+                    blank = false;
+                }
+                start = end + 1;
+            }
+        }
+        return blank ? 0 : DEFAULT_DIMENSION;
+    }
+
+    private static void copy(MappedPuzzleFile file, OutputStream out) throws IOException {
+        ChunkResult copy = new ChunkResult();
+        for (PuzzleChunk chunk : file.chunks()) {
+            copy.reset(chunk.size());
+            chunk.copyTo(copy.bytes);
+            out.write(copy.bytes, 0, copy.length);
+        }
+        out.flush();
+    }
+
+    private void prepareFor(int dimension) {
+        topology = GridTopology.forDimension(dimension);
+        for (int worker = 0; worker < workers; worker++) {
+            idleWorkers.add(new PuzzleWorker(topology));
+        }
+    }
+
+    private PuzzleWorker takeWorker() throws IllegalStateException {
+        if (topology == null) {
+            throw new IllegalStateException("No workers were prepared, as no puzzle dimension is known");
+        }
+        try {
+            return idleWorkers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a worker", e);
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while solving", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private <T> List<T> await(List<? extends Callable<T>> tasks) throws IOException {
+        try {
+            List<T> reply = new ArrayList<>(tasks.size());
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                reply.add(await(future));
+            }
+            return reply;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while solving", e);
+        }
+    }
+
+    /**
+     * Every {@code workers}-th line of the batch, starting at the slice's own index.
+     */
+    private final class Slice implements Callable<Integer> {
+        private final int first;
+        private LineBatch batch;
+
+        private Slice(int first) {
+            this.first = first;
+        }
+
+        @Override public Integer call() {
+            PuzzleWorker worker = takeWorker();
+            try {
+                int solved = 0;
+                for (int line = first; line < batch.size(); line += workers) {
+                    if (worker.solve(batch.data(), batch.start(line), batch.length(line))) {
+                        solved++;
+                    }
+                }
+                return solved;
+            } finally {
+                idleWorkers.add(worker);
+            }
+        }
+    }
+
+    private final class ChunkTask implements Callable<ChunkResult> {
+        private final PuzzleChunk chunk;
+        private final ChunkResult result;
+
+        private ChunkTask(PuzzleChunk chunk, ChunkResult result) {
+            this.chunk = chunk;
+            this.result = result;
+        }
+
+        @Override public ChunkResult call() {
+            result.reset(chunk.size());
+            chunk.copyTo(result.bytes);
+            PuzzleWorker worker = takeWorker();
+            try {
+                for (int start = 0; start < chunk.size(); ) {
+                    int end = chunk.lineEnd(start);
+                    int length = chunk.contentLength(start, end);
+                    if (length > 0) {
+                        result.puzzles++;
+                        if (worker.solve(chunk, start, length, result.bytes)) {
+                            result.solved++;
+                        }
+                    }
+                    start = end + 1;
+                }
+                return result;
+            } finally {
+                idleWorkers.add(worker);
+            }
+        }
+    }
+
+    /**
+     * A solved chunk's bytes and counts. At most {@code 2 * workers} are in use at once, each handed to the next
+     * chunk once written out, and its buffer only grows.
+     */
+    private static final class ChunkResult {
+        private byte[] bytes = new byte[0];
+        private int length;
+        private long puzzles;
+        private long solved;
+
+        private void reset(int size) {
+            if (bytes.length < size) {
+                bytes = new byte[size];
+            }
+            length = size;
+            puzzles = 0;
+            solved = 0;
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package io.hahai.sudoku.batch;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * A reusable block of input lines held in one char array, refilled from a {@link Reader} batch by batch.
+ * Blank lines are skipped and trailing carriage returns dropped.
+ */
+final class LineBatch {
+
+    private final int capacity;
+    private final int[] starts;
+    private final int[] lengths;
+    private final char[] buffer = new char[1 << 16];
+    private char[] data = new char[1 << 16];
+    private int bufferPosition;
+    private int bufferLimit;
+    private int size;
+    private int used;
+
+    LineBatch(int capacity) {
+        this.capacity = capacity;
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+    }
+
+    /**
+     * @return false once the reader is exhausted and no lines were read
+     */
+    boolean fill(Reader reader) throws IOException {
+        size = 0;
+        used = 0;
+        int lineStart = 0;
+        while (size < capacity) {
+            if (bufferPosition == bufferLimit) {
+                bufferLimit = reader.read(buffer);
+                bufferPosition = 0;
+                if (bufferLimit <= 0) {
+                    bufferLimit = 0;
+                    endLine(lineStart);
+                    break;
+                }
+            }
+            char c = buffer[bufferPosition++];
+            if (c == '\n') {
+                endLine(lineStart);
+                lineStart = used;
+            } else if (c != '\r') {
+                if (used == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                data[used++] = c;
+            }
+        }
+        return size > 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    char[] data() {
+        return data;
+    }
+
+    int start(int line) {
+        return starts[line];
+    }
+
+    int length(int line) {
+        return lengths[line];
+    }
+
+    void writeTo(Writer writer) throws IOException {
+        for (int line = 0; line < size; line++) {
+            writer.write(data, starts[line], lengths[line]);
+            writer.write('\n');
+        }
+    }
+
+    private void endLine(int lineStart) {
+        if (used > lineStart) {
+            starts[size] = lineStart;
+            lengths[size] = used - lineStart;
+            size++;
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package io.hahai.sudoku.batch;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Memory maps a puzzle file as a list of line aligned chunks, so that separate threads can parse puzzles
+ * straight out of the page cache without copying or decoding the file.
+ */
+public final class MappedPuzzleFile implements AutoCloseable {
+
+    public static final int DEFAULT_CHUNK_BYTES = 8 << 20;
+    public static final int MIN_CHUNK_BYTES = 64 << 10;
+    public static final int CHUNKS_PER_WORKER = 4;
+
+    private final FileChannel channel;
+    private final List<PuzzleChunk> chunks;
+
+    private MappedPuzzleFile(FileChannel channel, List<PuzzleChunk> chunks) {
+        this.channel = channel;
+        this.chunks = Collections.unmodifiableList(chunks);
+    }
+
+    public static MappedPuzzleFile open(Path path) throws IOException {
+        return open(path, DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Opens the file in about {@link #CHUNKS_PER_WORKER} chunks per worker, so small files still keep every
+     * worker busy and the last chunk does not hold the others up for long, but no smaller than
+     * {@link #MIN_CHUNK_BYTES} nor larger than {@link #DEFAULT_CHUNK_BYTES}.
+     */
+    public static MappedPuzzleFile openForWorkers(Path path, int workers) throws IOException {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Workers must be positive");
+        }
+        return open(path, chunkBytesFor(Files.size(path), workers));
+    }
+
+    static int chunkBytesFor(long fileBytes, int workers) {
+        long share = fileBytes / ((long) CHUNKS_PER_WORKER * workers);
+        return (int) Math.max(MIN_CHUNK_BYTES, Math.min(DEFAULT_CHUNK_BYTES, share));
+    }
+
+    public static MappedPuzzleFile open(Path path, int chunkBytes) throws IOException {
+        if (chunkBytes < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            List<PuzzleChunk> chunks = new ArrayList<>();
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long end = Math.min(size, start + chunkBytes);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                int length = mapped.limit();
+                if (end < size) {
+                    length = lastLineEnd(mapped);
+                    if (length == 0) {
+                        throw new IOException("Line at offset " + start + " is longer than the chunk size of " + chunkBytes + " bytes");
+                    }
+                    mapped.limit(length);
+                }
+                chunks.add(new PuzzleChunk(start, mapped));
+                start += length;
+            }
+            return new MappedPuzzleFile(channel, chunks);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public List<PuzzleChunk> chunks() {
+        return chunks;
+    }
+
+    @Override public void close() throws IOException {
+        channel.close();
+    }
+
+    private static int lastLineEnd(MappedByteBuffer mapped) {
+        for (int i = mapped.limit() - 1; i >= 0; i--) {
+            if (mapped.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+}
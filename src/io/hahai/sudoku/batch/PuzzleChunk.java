@@ -0,0 +1,56 @@
+package io.hahai.sudoku.batch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A run of whole lines from a {@link MappedPuzzleFile}, read with absolute gets so the chunk can be shared.
+ */
+public final class PuzzleChunk {
+
+    private final long fileOffset;
+    private final ByteBuffer bytes;
+
+    PuzzleChunk(long fileOffset, ByteBuffer bytes) {
+        this.fileOffset = fileOffset;
+        this.bytes = bytes;
+    }
+
+    public long fileOffset() {
+        return fileOffset;
+    }
+
+    public int size() {
+        return bytes.limit();
+    }
+
+    public byte get(int position) {
+        return bytes.get(position);
+    }
+
+    /**
+     * @return the position of the newline ending the line that starts at {@code from}, or {@link #size()}
+     */
+    public int lineEnd(int from) {
+        int limit = bytes.limit();
+        for (int i = from; i < limit; i++) {
+            if (bytes.get(i) == '\n') {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * @return the length of the line from {@code start} to {@code end} without a trailing carriage return
+     */
+    public int contentLength(int start, int end) {
+        return end > start && bytes.get(end - 1) == '\r' ? end - 1 - start : end - start;
+    }
+
+    public void copyTo(byte[] target) {
+        ByteBuffer view = bytes.duplicate();
+        view.position(0);
+        view.get(target, 0, view.limit());
+    }
+
+}
@@ -0,0 +1,120 @@
+package io.hahai.sudoku.batch;
+
+import io.hahai.sudoku.grid.GridTopology;
+import io.hahai.sudoku.solver.BacktrackingSolver;
+import io.hahai.sudoku.solver.CandidateState;
+import io.hahai.sudoku.solver.ConstraintPropagator;
+
+/**
+ * Solves one-line puzzles for one thread at a time, reusing its state for every puzzle.
+ */
+final class PuzzleWorker {
+
+    private final GridTopology topology;
+    private final int[] givens;
+    private final CandidateState state;
+    private final BacktrackingSolver solver;
+
+    PuzzleWorker(GridTopology topology) {
+        this.topology = topology;
+        this.givens = new int[topology.size()];
+        this.state = new CandidateState(topology);
+        this.solver = new BacktrackingSolver(ConstraintPropagator.standard());
+    }
+
+    /**
+     * Writes the solution of the puzzle over {@code line} in place.
+     *
+     * @return false when the line is not a puzzle of this dimension or has no solution
+     */
+    boolean solve(char[] line, int offset, int length) {
+        if (length != givens.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if ((givens[i] = valueOf(line[offset + i])) < 0) {
+                return false;
+            }
+        }
+        if (!solveGivens()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            line[offset + i] = (char) ('0' + state.value(i));
+        }
+        return true;
+    }
+
+    /**
+     * Parses the puzzle straight from the chunk and writes its solution into {@code target} at the same position.
+     *
+     * @return false when the line is not a puzzle of this dimension or has no solution
+     */
+    boolean solve(PuzzleChunk chunk, int offset, int length, byte[] target) {
+        if (length != givens.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if ((givens[i] = valueOf((char) chunk.get(offset + i))) < 0) {
+                return false;
+            }
+        }
+        if (!solveGivens()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            target[offset + i] = (byte) ('0' + state.value(i));
+        }
+        return true;
+    }
+
+    /**
+     * @return the dimension of the puzzle on the line, or 0 when it is not a puzzle of a dimension up to 9
+     */
+    static int dimensionOf(char[] line, int offset, int length) {
+        int dimension = dimensionFor(length);
+        for (int i = 0; i < length && dimension > 0; i++) {
+            if (!isCell(line[offset + i], dimension)) {
+                return 0;
+            }
+        }
+        return dimension;
+    }
+
+    /**
+     * As {@link #dimensionOf(char[], int, int)}, for a line of a chunk.
+     */
+    static int dimensionOf(PuzzleChunk chunk, int offset, int length) {
+        int dimension = dimensionFor(length);
+        for (int i = 0; i < length && dimension > 0; i++) {
+            if (!isCell((char) chunk.get(offset + i), dimension)) {
+                return 0;
+            }
+        }
+        return dimension;
+    }
+
+    private static int dimensionFor(int length) {
+        int dimension = (int) Math.sqrt(length);
+        int blockDimension = (int) Math.sqrt(dimension);
+        boolean square = dimension * dimension == length && blockDimension * blockDimension == dimension;
+        return square && blockDimension >= 2 && dimension <= 9 ? dimension : 0;
+    }
+
+    private static boolean isCell(char c, int dimension) {
+        return c == '.' || (c >= '0' && c <= '0' + dimension);
+    }
+
+    private boolean solveGivens() {
+        return state.load(givens) && solver.solve(state);
+    }
+
+    private int valueOf(char c) {
+        if (c == '.' || c == '0') {
+            return 0;
+        }
+        int value = c - '0';
+        return value >= 1 && value <= topology.dimension() ? value : -1;
+    }
+
+}
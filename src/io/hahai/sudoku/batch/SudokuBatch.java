@@ -0,0 +1,46 @@
+package io.hahai.sudoku.batch;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * Solves a file of one-line puzzles: {@code SudokuBatch <input|-> <output|-> [workers]}. Input files are
+ * memory mapped; {@code -} reads standard input instead.
+ */
+public final class SudokuBatch {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: SudokuBatch <input|-> <output|-> [workers]");
+            System.exit(1);
+        }
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        if (!"-".equals(args[0])) {
+            try (OutputStream out = new BufferedOutputStream(outputFor(args[1]), 1 << 16);
+                 BatchSolvingEngine engine = new BatchSolvingEngine(workers)) {
+                System.err.println(engine.solve(Paths.get(args[0]), out));
+            }
+            return;
+        }
+        try (Reader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(new OutputStreamWriter(outputFor(args[1]), StandardCharsets.US_ASCII));
+             BatchSolvingEngine engine = new BatchSolvingEngine(workers)) {
+            System.err.println(engine.solve(in, out));
+        }
+    }
+
+    private static OutputStream outputFor(String name) throws IOException {
+        return "-".equals(name) ? System.out : new FileOutputStream(name);
+    }
+
+}
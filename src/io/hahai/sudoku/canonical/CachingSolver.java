@@ -0,0 +1,47 @@
+package io.hahai.sudoku.canonical;
+
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.solver.Solver;
+
+/**
+ * Looks puzzles up in a {@link SolutionCache} by canonical form before handing them to another solver, so a
+ * puzzle seen before under any relabelling, reordering or transposition is answered without solving. Grids
+ * larger than 9x9, and puzzles too sparse to look up, go straight to the other solver. Instances are not thread safe, but many may share a cache.
+ */
+public final class CachingSolver implements Solver {
+
+    private final Solver delegate;
+    private final SolutionLookup lookup;
+
+    public CachingSolver(Solver delegate, SolutionCache cache) {
+        this.delegate = delegate;
+        this.lookup = new SolutionLookup(cache);
+    }
+
+    @Override public void attemptSolve(Grid grid) {
+        if (!grid.isGridInitialisedCorrectly()) {
+            delegate.attemptSolve(grid);
+            return;
+        }
+        int[] values = new int[grid.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = grid.getValueAt(i);
+        }
+        if (lookup.fill(grid.topology(), values)) {
+            for (int i = 0; i < values.length; i++) {
+                if (grid.getValueAt(i) == 0) {
+                    grid.play(i, values[i]);
+                }
+            }
+            return;
+        }
+        delegate.attemptSolve(grid);
+        if (grid.isGridCompleteAndCorrect()) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = grid.getValueAt(i);
+            }
+            lookup.store(values);
+        }
+    }
+
+}
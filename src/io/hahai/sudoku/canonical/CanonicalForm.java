@@ -0,0 +1,53 @@
+package io.hahai.sudoku.canonical;
+
+/**
+ * A puzzle's canonical grid together with the transform that produced it from the puzzle.
+ */
+public final class CanonicalForm {
+
+    private final int[] values;
+    private final PuzzleTransform transform;
+    private final boolean exact;
+    private String key;
+
+    CanonicalForm(int[] values, PuzzleTransform transform, boolean exact) {
+        this.values = values;
+        this.transform = transform;
+        this.exact = exact;
+    }
+
+    public int[] values() {
+        return values.clone();
+    }
+
+    public PuzzleTransform transform() {
+        return transform;
+    }
+
+    /**
+     * False when the search gave up on some tied arrangements: the grid is still the puzzle under
+     * {@link #transform()}, but an equivalent puzzle may not come out the same.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * The canonical grid as one character per cell, equal for every puzzle with this canonical form.
+     */
+    public String key() {
+        if (key == null) {
+            char[] chars = new char[values.length];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) ('0' + values[i]);
+            }
+            key = new String(chars);
+        }
+        return key;
+    }
+
+    @Override public String toString() {
+        return key();
+    }
+
+}
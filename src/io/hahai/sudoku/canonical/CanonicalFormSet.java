@@ -0,0 +1,122 @@
+package io.hahai.sudoku.canonical;
+
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.util.Arrays;
+
+/**
+ * A set of canonical grids, each packed into a few longs at just enough bits per cell (six longs for a 9x9 grid)
+ * and kept in one open addressed table, so millions fit without an object per entry. Not thread safe.
+ */
+public final class CanonicalFormSet {
+
+    private static final double MAX_LOAD = 0.75;
+
+    private final int cells;
+    private final int bitsPerCell;
+    private final int words;
+    private final long[] scratch;
+    private long[] table;
+    private int capacity;
+    private int size;
+
+    public CanonicalFormSet(GridTopology topology) {
+        this(topology, 1024);
+    }
+
+    public CanonicalFormSet(GridTopology topology, int expected) {
+        this.cells = topology.size();
+        this.bitsPerCell = 32 - Integer.numberOfLeadingZeros(topology.dimension());
+        // one extra bit marks a slot as occupied, since the empty grid packs to all zeros
+        this.words = (cells * bitsPerCell + 1 + 63) / 64;
+        this.scratch = new long[words];
+        this.capacity = Integer.highestOneBit(Math.max(16, (int) (expected / MAX_LOAD)) - 1) << 1;
+        this.table = new long[capacity * words];
+    }
+
+    /**
+     * @param values a canonical grid, as written by {@link Canonicalizer#canonicalValues(int[], int[])}
+     * @return true when the grid was not already in the set
+     */
+    public boolean add(int[] values) {
+        pack(values);
+        int slot = find(table, capacity, scratch);
+        if (table[slot * words + words - 1] != 0) {
+            return false;
+        }
+        System.arraycopy(scratch, 0, table, slot * words, words);
+        if (++size > capacity * MAX_LOAD) {
+            grow();
+        }
+        return true;
+    }
+
+    public boolean contains(int[] values) {
+        pack(values);
+        return table[find(table, capacity, scratch) * words + words - 1] != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void pack(int[] values) {
+        if (values.length != cells) {
+            throw new IllegalArgumentException(values.length + " values do not fill a grid of " + cells + " cells");
+        }
+        Arrays.fill(scratch, 0);
+        int bit = 0;
+        for (int value : values) {
+            scratch[bit >>> 6] |= (long) value << (bit & 63);
+            if ((bit & 63) + bitsPerCell > 64) {
+                scratch[(bit >>> 6) + 1] |= (long) value >>> (64 - (bit & 63));
+            }
+            bit += bitsPerCell;
+        }
+        scratch[words - 1] |= 1L << 63;
+    }
+
+    private int find(long[] slots, int slotCount, long[] key) {
+        int slot = hash(key) & (slotCount - 1);
+        while (true) {
+            int base = slot * words;
+            if (slots[base + words - 1] == 0 || matches(slots, base, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & (slotCount - 1);
+        }
+    }
+
+    private boolean matches(long[] slots, int base, long[] key) {
+        for (int w = 0; w < words; w++) {
+            if (slots[base + w] != key[w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(long[] key) {
+        long h = 0;
+        for (int w = 0; w < words; w++) {
+            h = (h ^ key[w]) * 0x9E3779B97F4A7C15L;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void grow() {
+        int grownCapacity = capacity * 2;
+        long[] grown = new long[grownCapacity * words];
+        long[] key = new long[words];
+        for (int slot = 0; slot < capacity; slot++) {
+            int base = slot * words;
+            if (table[base + words - 1] != 0) {
+                System.arraycopy(table, base, key, 0, words);
+                System.arraycopy(key, 0, grown, find(grown, grownCapacity, key) * words, words);
+            }
+        }
+        table = grown;
+        capacity = grownCapacity;
+    }
+
+}
@@ -0,0 +1,582 @@
+package io.hahai.sudoku.canonical;
+
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.util.Arrays;
+
+/**
+ * Finds the canonical form of a puzzle: the lexicographically smallest grid, reading rows in order with 0 for
+ * an empty cell, among all transpositions, band, row, stack and column reorderings and digit relabellings of
+ * it. Two puzzles have the same canonical form exactly when one can be turned into the other.
+ * <p>
+ * Digits are relabelled in order of first appearance, so the first row of any arrangement reads as its pattern
+ * of empty cells, and the best first row is the one whose empty cells can be pushed furthest left. Only the
+ * column orders achieving that are kept. The search then fills in one row at a time, keeping just the
+ * arrangements that tie for the smallest grid so far. Supported for 4x4 and 9x9 grids. Instances reuse
+ * their scratch space and are not thread safe.
+ * <p>
+ * Sparse and symmetric puzzles tie in very many arrangements, most of them the same up to a symmetry of the
+ * puzzle. Identical rows and columns are only tried once, and once the ties pile up, arrangements that would
+ * place the same rows in the same way from then on are merged. Should the ties still reach
+ * {@link #MAX_ARRANGEMENTS}, later ones are dropped: the form is then still a deterministic transform of the
+ * puzzle, but {@link CanonicalForm#isExact()} is false and an equivalent puzzle may get a different form.
+ */
+public final class Canonicalizer {
+
+    public static final int MAX_ARRANGEMENTS = 4096;
+    private static final int FIRST_MERGE = 256;
+
+    private final int n;
+    private final int b;
+    private final ColumnOrders table;
+    private final int[][] columnOrders;
+    private final int[][] grids;
+    private final int[][] rowMasks;
+    private final int[][] rowTwins;
+    private final int[][] columnTwins;
+    private final boolean[] twinColumns;
+    private final int[] best;
+    private final int[] rowLabels;
+    private final int[] firstLabels;
+    private final int[] rendered;
+    private final int[] unlabelled;
+    private final int[] names;
+    private final int[] sortedRows;
+    private final int[] sortedBands;
+    private final long[] orderKeys;
+    private final int[] orderStamps;
+    private final int[] mergeSlots;
+    private final int[] mergeStamps;
+    private int stamp;
+    private Arrangements current;
+    private Arrangements next;
+    private int labelCount;
+    private int mergeAt;
+    private boolean exact;
+
+    public Canonicalizer(GridTopology topology) {
+        if (topology.blockDimension() < 2 || topology.blockDimension() > 3) {
+            throw new IllegalArgumentException("Canonical forms are only searched for 4x4 and 9x9 grids");
+        }
+        this.n = topology.dimension();
+        this.b = topology.blockDimension();
+        this.table = ColumnOrders.forBlockDimension(b);
+        this.columnOrders = table.orders;
+        this.grids = new int[2][n * n];
+        this.rowMasks = new int[2][n];
+        this.rowTwins = new int[2][n];
+        this.columnTwins = new int[2][n];
+        this.twinColumns = new boolean[2];
+        this.best = new int[n * n];
+        this.rowLabels = new int[n + 1];
+        this.firstLabels = new int[n + 1];
+        this.rendered = new int[n * n];
+        this.unlabelled = new int[n * n];
+        this.names = new int[n + 1];
+        this.sortedRows = new int[n];
+        this.sortedBands = new int[b];
+        this.orderKeys = new long[Integer.highestOneBit(columnOrders.length) * 4];
+        this.orderStamps = new int[orderKeys.length];
+        this.mergeSlots = new int[MAX_ARRANGEMENTS * 2];
+        this.mergeStamps = new int[mergeSlots.length];
+        this.current = new Arrangements(n);
+        this.next = new Arrangements(n);
+    }
+
+    /**
+     * @param values the puzzle row by row, 0 for an empty cell
+     */
+    public CanonicalForm canonicalize(int[] values) {
+        search(values);
+        int[] labels = new int[n + 1];
+        System.arraycopy(current.labels[0], 0, labels, 0, n + 1);
+        return new CanonicalForm(best.clone(), new PuzzleTransform(current.transposed[0] == 1, current.rows[0],
+                columnOrders[current.columnOrder[0]], completeLabels(labels)), exact);
+    }
+
+    /**
+     * Writes just the canonical grid of {@code values} into {@code target}, without working out the transform.
+     *
+     * @return false when too many arrangements tied and the grid written may not be the smallest
+     */
+    public boolean canonicalValues(int[] values, int[] target) {
+        search(values);
+        System.arraycopy(best, 0, target, 0, best.length);
+        return exact;
+    }
+
+    private void search(int[] values) {
+        if (values.length != n * n) {
+            throw new IllegalArgumentException(values.length + " values do not fill a grid of dimension " + n);
+        }
+        Arrays.fill(rowMasks[0], 0);
+        Arrays.fill(rowMasks[1], 0);
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                int value = values[r * n + c];
+                grids[0][r * n + c] = value;
+                grids[1][c * n + r] = value;
+                if (value != 0) {
+                    rowMasks[0][r] |= 1 << (n - 1 - c);
+                    rowMasks[1][c] |= 1 << (n - 1 - r);
+                }
+            }
+        }
+        for (int t = 0; t < 2; t++) {
+            findTwins(grids[t], rowTwins[t], true);
+            twinColumns[t] = findTwins(grids[t], columnTwins[t], false);
+        }
+        exact = true;
+        chooseFirstRows();
+        for (int position = 2; position < n; position++) {
+            chooseRows(position);
+        }
+    }
+
+    /**
+     * Points each row, or column, at the first one holding exactly the same values; rows only count as twins
+     * within a band, since only there can they be swapped freely.
+     *
+     * @return whether any two were twins
+     */
+    private boolean findTwins(int[] grid, int[] twins, boolean rows) {
+        int stride = rows ? n : 1;
+        int step = rows ? 1 : n;
+        boolean found = false;
+        for (int line = 0; line < n; line++) {
+            twins[line] = line;
+            for (int other = rows ? line / b * b : 0; other < line; other++) {
+                if (twins[other] == other && sameLine(grid, line * stride, other * stride, step)) {
+                    twins[line] = other;
+                    found = true;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    private boolean sameLine(int[] grid, int start, int otherStart, int step) {
+        for (int k = 0; k < n; k++) {
+            if (grid[start + k * step] != grid[otherStart + k * step]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The first row reads as 0 for each empty cell and 1, 2, 3... for the rest in order, so it is smallest when
+     * its empty cells come as early as possible. Many column orders tie for that, so rather than keep them all
+     * the second row, which must come from the same band, is chosen straight away.
+     */
+    private void chooseFirstRows() {
+        int bestPattern = Integer.MAX_VALUE;
+        for (int t = 0; t < 2; t++) {
+            for (int row = 0; row < n; row++) {
+                bestPattern = Math.min(bestPattern, table.smallestPattern[rowMasks[t][row]]);
+            }
+        }
+        int label = 1;
+        for (int k = 0; k < n; k++) {
+            best[k] = (bestPattern >> (n - 1 - k) & 1) == 0 ? 0 : label++;
+        }
+        current.clear();
+        mergeAt = FIRST_MERGE;
+        for (int t = 0; t < 2; t++) {
+            for (int row = 0; row < n; row++) {
+                int mask = rowMasks[t][row];
+                if (rowTwins[t][row] == row && table.smallestPattern[mask] == bestPattern) {
+                    addSecondRows(t, row, table.smallestOrders[mask]);
+                }
+            }
+        }
+    }
+
+    private void addSecondRows(int t, int first, int[] orders) {
+        int[] grid = grids[t];
+        int band = first / b;
+        stamp++;
+        for (int order : orders) {
+            int[] columns = columnOrders[order];
+            if (twinColumns[t] && !firstOrderOfItsKind(columnTwins[t], columns)) {
+                continue;
+            }
+            Arrays.fill(firstLabels, 0);
+            int nextLabel = 1;
+            for (int k = 0; k < n; k++) {
+                int digit = grid[first * n + columns[k]];
+                if (digit != 0) {
+                    firstLabels[digit] = nextLabel++;
+                }
+            }
+            for (int row = band * b; row < band * b + b; row++) {
+                if (row == first || hasTwinBefore(t, row, 1 << first)) {
+                    continue;
+                }
+                System.arraycopy(firstLabels, 0, rowLabels, 0, n + 1);
+                int comparison = compareRow(grid, row, columns, 1, nextLabel, current.size == 0);
+                if (comparison > 0 || !admit(current, 1, comparison)) {
+                    continue;
+                }
+                int added = current.add(t, order, 1 << first | 1 << row, band);
+                current.rows[added][0] = first;
+                current.rows[added][1] = row;
+                System.arraycopy(rowLabels, 0, current.labels[added], 0, n + 1);
+                current.next[added] = labelCount;
+            }
+        }
+    }
+
+    /**
+     * Column orders that only swap identical columns give the same grid; only the first of them seen since
+     * {@link #stamp} last moved on is worth trying.
+     */
+    private boolean firstOrderOfItsKind(int[] twins, int[] columns) {
+        long key = 0;
+        for (int k = 0; k < n; k++) {
+            key = key << 4 | twins[columns[k]];
+        }
+        int mask = orderKeys.length - 1;
+        for (int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask; ; slot = (slot + 1) & mask) {
+            if (orderStamps[slot] != stamp) {
+                orderStamps[slot] = stamp;
+                orderKeys[slot] = key;
+                return true;
+            }
+            if (orderKeys[slot] == key) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Whether an unused row before this one in its band holds the same values, and so was already tried.
+     */
+    private boolean hasTwinBefore(int t, int row, int used) {
+        int twin = rowTwins[t][row];
+        for (int other = row / b * b; other < row; other++) {
+            if ((used & (1 << other)) == 0 && rowTwins[t][other] == twin) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void chooseRows(int position) {
+        next.clear();
+        mergeAt = FIRST_MERGE;
+        boolean newBand = position % b == 0;
+        for (int a = 0; a < current.size; a++) {
+            int t = current.transposed[a];
+            int[] grid = grids[t];
+            int[] columns = columnOrders[current.columnOrder[a]];
+            int used = current.usedRows[a];
+            for (int row = 0; row < n; row++) {
+                int band = row / b;
+                if ((used & (1 << row)) != 0 || (newBand ? (used & (1 << (band * b))) != 0 : band != current.band[a])
+                        || hasTwinBefore(t, row, used)) {
+                    continue;
+                }
+                System.arraycopy(current.labels[a], 0, rowLabels, 0, n + 1);
+                int comparison = compareRow(grid, row, columns, position, current.next[a], next.size == 0);
+                if (comparison > 0 || !admit(next, position, comparison)) {
+                    continue;
+                }
+                int added = next.add(t, current.columnOrder[a], used | (1 << row), band);
+                System.arraycopy(current.rows[a], 0, next.rows[added], 0, position);
+                next.rows[added][position] = row;
+                System.arraycopy(rowLabels, 0, next.labels[added], 0, n + 1);
+                next.next[added] = labelCount;
+            }
+        }
+        Arrangements swap = current;
+        current = next;
+        next = swap;
+    }
+
+    /**
+     * Makes room for an arrangement that ties with or beats the best so far, merging ties once there are many.
+     *
+     * @return false when the tie is dropped because the set is full
+     */
+    private boolean admit(Arrangements set, int position, int comparison) {
+        if (comparison < 0) {
+            set.clear();
+            mergeAt = FIRST_MERGE;
+            return true;
+        }
+        if (set.size < mergeAt) {
+            return true;
+        }
+        merge(set, position);
+        if (set.size >= MAX_ARRANGEMENTS) {
+            exact = false;
+            return false;
+        }
+        if (set.size > mergeAt / 2) {
+            mergeAt = Math.min(mergeAt * 2, MAX_ARRANGEMENTS);
+        }
+        return true;
+    }
+
+    /**
+     * Keeps one of each group of arrangements that agree on everything the rest of the search depends on: the
+     * rows still to place, as they would read, grouped by band. Those all finish with the same grid.
+     */
+    private void merge(Arrangements set, int position) {
+        int length = 1 + (n - 1 - position) * n;
+        for (int a = 0; a < set.size; a++) {
+            sign(set, a, position);
+        }
+        stamp++;
+        int mask = mergeSlots.length - 1;
+        int kept = 0;
+        for (int a = 0; a < set.size; a++) {
+            int[] signature = set.signature[a];
+            int hash = 1;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + signature[i];
+            }
+            for (int slot = (hash ^ hash >>> 16) & mask; ; slot = (slot + 1) & mask) {
+                if (mergeStamps[slot] != stamp) {
+                    mergeStamps[slot] = stamp;
+                    mergeSlots[slot] = kept;
+                    set.swap(a, kept++);
+                    break;
+                }
+                if (Arrays.equals(set.signature[mergeSlots[slot]], 0, length, signature, 0, length)) {
+                    break;
+                }
+            }
+        }
+        set.size = kept;
+    }
+
+    /**
+     * Writes what is left to place for an arrangement: the next label, then the unplaced rows of its band and
+     * then those of each untouched band, relabelled as far as they can be and sorted so that the order they
+     * happen to sit in does not matter. Digits without a label yet are sorted alike and then written past
+     * {@code n} in order of appearance, since whatever they are they will be labelled the same way.
+     */
+    private void sign(Arrangements set, int a, int position) {
+        int[] grid = grids[set.transposed[a]];
+        int[] columns = columnOrders[set.columnOrder[a]];
+        int[] labels = set.labels[a];
+        int used = set.usedRows[a];
+        for (int row = 0; row < n; row++) {
+            if ((used & (1 << row)) == 0) {
+                for (int k = 0; k < n; k++) {
+                    int digit = grid[row * n + columns[k]];
+                    boolean open = digit != 0 && labels[digit] == 0;
+                    rendered[row * n + k] = open ? n + 1 : labels[digit];
+                    unlabelled[row * n + k] = open ? digit : 0;
+                }
+            }
+        }
+        Arrays.fill(names, 0);
+        int[] signature = set.signature[a];
+        signature[0] = set.next[a];
+        int length = 1;
+        if ((position + 1) % b != 0) {
+            length = writeRows(signature, length, sortRows(set.band[a], used));
+        }
+        int bands = 0;
+        for (int band = 0; band < b; band++) {
+            if ((used >> (band * b) & ((1 << b) - 1)) == 0) {
+                sortRows(band, used);
+                int slot = bands++;
+                while (slot > 0 && compareBands(sortedBands[slot - 1], band) > 0) {
+                    sortedBands[slot] = sortedBands[slot - 1];
+                    slot--;
+                }
+                sortedBands[slot] = band;
+            }
+        }
+        for (int i = 0; i < bands; i++) {
+            length = writeRows(signature, length, sortedBands[i] * b << 8 | b);
+        }
+    }
+
+    /**
+     * Sorts the unused rows of a band into {@link #sortedRows} from {@code band * b}.
+     *
+     * @return how many there are
+     */
+    private int sortRows(int band, int used) {
+        int start = band * b;
+        int count = 0;
+        for (int row = start; row < start + b; row++) {
+            if ((used & (1 << row)) == 0) {
+                int slot = start + count++;
+                while (slot > start && compareRendered(sortedRows[slot - 1], row) > 0) {
+                    sortedRows[slot] = sortedRows[slot - 1];
+                    slot--;
+                }
+                sortedRows[slot] = row;
+            }
+        }
+        return start << 8 | count;
+    }
+
+    private int writeRows(int[] signature, int length, int sorted) {
+        int start = sorted >>> 8;
+        for (int i = start; i < start + (sorted & 0xFF); i++) {
+            for (int cell = sortedRows[i] * n; cell < sortedRows[i] * n + n; cell++) {
+                int digit = unlabelled[cell];
+                if (digit != 0 && names[digit] == 0) {
+                    names[digit] = ++names[0];
+                }
+                signature[length++] = digit == 0 ? rendered[cell] : n + names[digit];
+            }
+        }
+        return length;
+    }
+
+    private int compareRendered(int row, int other) {
+        return Arrays.compare(rendered, row * n, row * n + n, rendered, other * n, other * n + n);
+    }
+
+    private int compareBands(int band, int other) {
+        for (int i = 0; i < b; i++) {
+            int comparison = compareRendered(sortedRows[band * b + i], sortedRows[other * b + i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Relabels the row into {@link #rowLabels} and compares it with the best grid's row at {@code position},
+     * taking over that row when it is smaller or when there is nothing to compare against yet.
+     */
+    private int compareRow(int[] grid, int row, int[] columns, int position, int nextLabel, boolean open) {
+        int comparison = open ? -1 : 0;
+        for (int k = 0; k < n; k++) {
+            int digit = grid[row * n + columns[k]];
+            int label = 0;
+            if (digit != 0) {
+                if (rowLabels[digit] == 0) {
+                    rowLabels[digit] = nextLabel++;
+                }
+                label = rowLabels[digit];
+            }
+            int cell = position * n + k;
+            if (comparison == 0) {
+                comparison = Integer.compare(label, best[cell]);
+                if (comparison > 0) {
+                    return comparison;
+                }
+            }
+            if (comparison < 0) {
+                best[cell] = label;
+            }
+        }
+        labelCount = nextLabel;
+        return comparison;
+    }
+
+    private int[] completeLabels(int[] labels) {
+        boolean[] taken = new boolean[n + 1];
+        for (int digit = 1; digit <= n; digit++) {
+            taken[labels[digit]] = true;
+        }
+        int free = 1;
+        for (int digit = 1; digit <= n; digit++) {
+            if (labels[digit] == 0) {
+                while (taken[free]) {
+                    free++;
+                }
+                labels[digit] = free;
+                taken[free] = true;
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * The arrangements still tied for the smallest grid, kept in reusable parallel arrays.
+     */
+    private static final class Arrangements {
+        private final int n;
+        private int size;
+        private int[] transposed = new int[64];
+        private int[] columnOrder = new int[64];
+        private int[] usedRows = new int[64];
+        private int[] band = new int[64];
+        private int[] next = new int[64];
+        private int[][] rows = new int[64][];
+        private int[][] labels = new int[64][];
+        private int[][] signature = new int[64][];
+
+        private Arrangements(int n) {
+            this.n = n;
+            fill(0);
+        }
+
+        private void clear() {
+            size = 0;
+        }
+
+        private int add(int t, int order, int used, int currentBand) {
+            if (size == transposed.length) {
+                grow();
+            }
+            transposed[size] = t;
+            columnOrder[size] = order;
+            usedRows[size] = used;
+            band[size] = currentBand;
+            Arrays.fill(labels[size], 0);
+            return size++;
+        }
+
+        private void swap(int a, int other) {
+            if (a == other) {
+                return;
+            }
+            swap(transposed, a, other);
+            swap(columnOrder, a, other);
+            swap(usedRows, a, other);
+            swap(band, a, other);
+            swap(next, a, other);
+            swap(rows, a, other);
+            swap(labels, a, other);
+            swap(signature, a, other);
+        }
+
+        private static void swap(int[] values, int a, int other) {
+            int value = values[a];
+            values[a] = values[other];
+            values[other] = value;
+        }
+
+        private static void swap(int[][] values, int a, int other) {
+            int[] value = values[a];
+            values[a] = values[other];
+            values[other] = value;
+        }
+
+        private void grow() {
+            int capacity = size * 2;
+            transposed = Arrays.copyOf(transposed, capacity);
+            columnOrder = Arrays.copyOf(columnOrder, capacity);
+            usedRows = Arrays.copyOf(usedRows, capacity);
+            band = Arrays.copyOf(band, capacity);
+            next = Arrays.copyOf(next, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            signature = Arrays.copyOf(signature, capacity);
+            fill(size);
+        }
+
+        private void fill(int from) {
+            for (int i = from; i < rows.length; i++) {
+                rows[i] = new int[n];
+                labels[i] = new int[n + 1];
+                signature[i] = new int[1 + n * n];
+            }
+        }
+    }
+
+}
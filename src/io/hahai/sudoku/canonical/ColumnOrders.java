@@ -0,0 +1,113 @@
+package io.hahai.sudoku.canonical;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every reordering of the {@code b * b} columns of a grid that keeps each stack together, and, for each
+ * pattern of filled cells a row can have, which of those orders push its empty cells furthest left. Patterns
+ * are bit sets with the first column highest. Built once per block dimension and shared.
+ */
+final class ColumnOrders {
+
+    private static final ColumnOrders[] BY_BLOCK_DIMENSION = new ColumnOrders[4];
+
+    final int[][] orders;
+    final int[] smallestPattern;
+    final int[][] smallestOrders;
+
+    private ColumnOrders(int b) {
+        int n = b * b;
+        orders = bandPreservingOrders(b);
+        smallestPattern = new int[1 << n];
+        smallestOrders = new int[1 << n][];
+        int[] matching = new int[orders.length];
+        for (int mask = 0; mask < 1 << n; mask++) {
+            int smallest = Integer.MAX_VALUE;
+            int count = 0;
+            for (int order = 0; order < orders.length; order++) {
+                int pattern = pattern(mask, orders[order]);
+                if (pattern < smallest) {
+                    smallest = pattern;
+                    count = 0;
+                }
+                if (pattern == smallest) {
+                    matching[count++] = order;
+                }
+            }
+            smallestPattern[mask] = smallest;
+            smallestOrders[mask] = Arrays.copyOf(matching, count);
+        }
+    }
+
+    static synchronized ColumnOrders forBlockDimension(int b) {
+        if (BY_BLOCK_DIMENSION[b] == null) {
+            BY_BLOCK_DIMENSION[b] = new ColumnOrders(b);
+        }
+        return BY_BLOCK_DIMENSION[b];
+    }
+
+    /**
+     * The row pattern {@code mask} reads as once its columns are put in {@code order}.
+     */
+    static int pattern(int mask, int[] order) {
+        int n = order.length;
+        int pattern = 0;
+        for (int k = 0; k < n; k++) {
+            pattern = pattern << 1 | (mask >> (n - 1 - order[k])) & 1;
+        }
+        return pattern;
+    }
+
+    /**
+     * Every reordering of {@code b * b} lines that keeps each group of {@code b} together.
+     */
+    static int[][] bandPreservingOrders(int b) {
+        List<int[]> groupOrders = permutations(b);
+        List<int[]> reply = new ArrayList<>();
+        addOrders(groupOrders, b, new int[b][], 0, reply);
+        return reply.toArray(new int[0][]);
+    }
+
+    private static void addOrders(List<int[]> permutations, int b, int[][] within, int group, List<int[]> reply) {
+        if (group == b) {
+            for (int[] groupOrder : permutations) {
+                int[] order = new int[b * b];
+                for (int g = 0; g < b; g++) {
+                    for (int i = 0; i < b; i++) {
+                        order[g * b + i] = groupOrder[g] * b + within[groupOrder[g]][i];
+                    }
+                }
+                reply.add(order);
+            }
+            return;
+        }
+        for (int[] permutation : permutations) {
+            within[group] = permutation;
+            addOrders(permutations, b, within, group + 1, reply);
+        }
+    }
+
+    private static List<int[]> permutations(int size) {
+        List<int[]> reply = new ArrayList<>();
+        permute(new int[size], 0, new boolean[size], reply);
+        return reply;
+    }
+
+    private static void permute(int[] current, int position, boolean[] used, List<int[]> reply) {
+        if (position == current.length) {
+            reply.add(current.clone());
+            return;
+        }
+        for (int i = 0; i < current.length; i++) {
+            if (!used[i]) {
+                used[i] = true;
+                current[position] = i;
+                permute(current, position + 1, used, reply);
+                used[i] = false;
+            }
+        }
+    }
+
+}
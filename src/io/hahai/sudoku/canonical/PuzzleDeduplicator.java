@@ -0,0 +1,141 @@
+package io.hahai.sudoku.canonical;
+
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drops puzzles that are transformations of ones already seen. Canonical forms are worked out in batches on a
+ * fixed pool of workers, each keeping its own {@link Canonicalizer}, and then checked against a
+ * {@link CanonicalFormSet} in input order, so the first of each family is the one kept. A puzzle whose form
+ * is not {@link CanonicalForm#isExact() exact} is never mistaken for another family, but may fail to match its
+ * own.
+ */
+public final class PuzzleDeduplicator implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 1024;
+
+    private final GridTopology topology;
+    private final ExecutorService executor;
+    private final BlockingQueue<Canonicalizer> idleCanonicalizers;
+    private final CanonicalFormSet seen;
+
+    public PuzzleDeduplicator(GridTopology topology, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Workers must be positive");
+        }
+        this.topology = topology;
+        this.executor = Executors.newFixedThreadPool(workers);
+        this.idleCanonicalizers = new ArrayBlockingQueue<>(workers);
+        for (int worker = 0; worker < workers; worker++) {
+            idleCanonicalizers.add(new Canonicalizer(topology));
+        }
+        this.seen = new CanonicalFormSet(topology, 1 << 16);
+    }
+
+    /**
+     * Reads one-line puzzles ({@code .} or {@code 0} for blanks) and writes back each one that is not equivalent
+     * to an earlier one, including any seen by earlier calls. Lines that are not puzzles of this dimension are
+     * dropped.
+     *
+     * @return the number of puzzles written
+     */
+    public long dedupe(Reader in, Writer out) throws IOException {
+        BufferedReader lines = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        List<Future<int[]>> futures = new ArrayList<>(BATCH_SIZE);
+        long written = 0;
+        String line;
+        do {
+            line = lines.readLine();
+            if (line != null && !line.trim().isEmpty()) {
+                batch.add(line.trim());
+            }
+            if (batch.size() == BATCH_SIZE || (line == null && !batch.isEmpty())) {
+                for (String puzzle : batch) {
+                    futures.add(executor.submit(() -> canonicalOf(puzzle)));
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    int[] canonical = await(futures.get(i));
+                    if (canonical != null && seen.add(canonical)) {
+                        out.write(batch.get(i));
+                        out.write('\n');
+                        written++;
+                    }
+                }
+                batch.clear();
+                futures.clear();
+            }
+        } while (line != null);
+        out.flush();
+        return written;
+    }
+
+    /**
+     * @return the number of distinct puzzles seen so far
+     */
+    public int distinct() {
+        return seen.size();
+    }
+
+    @Override public void close() {
+        executor.shutdown();
+    }
+
+    private int[] canonicalOf(String line) throws InterruptedException {
+        int[] givens = parse(line);
+        if (givens == null) {
+            return null;
+        }
+        Canonicalizer canonicalizer = idleCanonicalizers.take();
+        try {
+            canonicalizer.canonicalValues(givens, givens);
+            return givens;
+        } finally {
+            idleCanonicalizers.add(canonicalizer);
+        }
+    }
+
+    private int[] parse(String line) {
+        if (line.length() != topology.size()) {
+            return null;
+        }
+        int[] givens = new int[line.length()];
+        for (int i = 0; i < givens.length; i++) {
+            char c = line.charAt(i);
+            if (c != '.' && c != '0') {
+                givens[i] = c - '0';
+                if (givens[i] < 1 || givens[i] > topology.dimension()) {
+                    return null;
+                }
+            }
+        }
+        return givens;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while deduplicating", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+}
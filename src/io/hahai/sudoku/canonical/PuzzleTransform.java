@@ -0,0 +1,62 @@
+package io.hahai.sudoku.canonical;
+
+/**
+ * One validity preserving rearrangement of a grid: an optional transposition, then a reordering of rows and of
+ * columns that keeps bands and stacks together, then a relabelling of the digits. Row {@code i} of the
+ * transformed grid is row {@code rowOrder[i]} of the (possibly transposed) source, and likewise for columns.
+ */
+public final class PuzzleTransform {
+
+    private final int dimension;
+    private final boolean transposed;
+    private final int[] rowOrder;
+    private final int[] columnOrder;
+    private final int[] labels;
+    private final int[] sources;
+
+    /**
+     * @param labels the new digit for each source digit, index 0 unused; must be a permutation of 1..dimension
+     */
+    PuzzleTransform(boolean transposed, int[] rowOrder, int[] columnOrder, int[] labels) {
+        this.dimension = rowOrder.length;
+        this.transposed = transposed;
+        this.rowOrder = rowOrder.clone();
+        this.columnOrder = columnOrder.clone();
+        this.labels = labels.clone();
+        this.sources = new int[labels.length];
+        for (int digit = 1; digit < labels.length; digit++) {
+            sources[labels[digit]] = digit;
+        }
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * Writes the transformed {@code source} into {@code target}; empty cells stay 0.
+     */
+    public void apply(int[] source, int[] target) {
+        for (int i = 0; i < dimension; i++) {
+            for (int j = 0; j < dimension; j++) {
+                target[i * dimension + j] = labels[source[sourceCell(i, j)]];
+            }
+        }
+    }
+
+    /**
+     * Undoes {@link #apply}: writes the source grid that {@code transformed} came from into {@code target}.
+     */
+    public void restore(int[] transformed, int[] target) {
+        for (int i = 0; i < dimension; i++) {
+            for (int j = 0; j < dimension; j++) {
+                target[sourceCell(i, j)] = sources[transformed[i * dimension + j]];
+            }
+        }
+    }
+
+    private int sourceCell(int i, int j) {
+        return transposed ? columnOrder[j] * dimension + rowOrder[i] : rowOrder[i] * dimension + columnOrder[j];
+    }
+
+}
@@ -0,0 +1,100 @@
+package io.hahai.sudoku.canonical;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solutions of canonical puzzles, keyed by {@link CanonicalForm#key()} and held in canonical form. The cache is
+ * split into independently locked segments, each evicting its least recently used entry once full, so the
+ * whole holds at most {@code capacity} solutions. Safe for use from many threads.
+ */
+public final class SolutionCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SolutionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        }
+        int segmentCount = Math.min(SEGMENTS, capacity);
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(capacity / segmentCount + (i < capacity % segmentCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * @return the canonical solution, or null when it is not cached
+     */
+    public int[] get(String key) {
+        Segment segment = segmentFor(key);
+        int[] solution;
+        synchronized (segment) {
+            solution = segment.get(key);
+        }
+        if (solution == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return solution.clone();
+    }
+
+    public void put(String key, int[] solution) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, solution.clone());
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        return segments[((hash ^ (hash >>> 16)) & 0x7fffffff) % segments.length];
+    }
+
+    private final class Segment extends LinkedHashMap<String, int[]> {
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+}
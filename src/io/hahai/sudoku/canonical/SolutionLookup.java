@@ -0,0 +1,79 @@
+package io.hahai.sudoku.canonical;
+
+import io.hahai.sudoku.grid.GridTopology;
+
+/**
+ * Answers puzzles held as plain values from a {@link SolutionCache}, and stores the solutions found for those it
+ * could not answer. Puzzles with fewer givens than a uniquely solvable puzzle can have are not looked up, since
+ * they are the costliest to canonicalize and are never worth caching. Instances keep their own
+ * {@link Canonicalizer} and are not thread safe, but many may share a cache.
+ */
+public final class SolutionLookup {
+
+    private final SolutionCache cache;
+    private Canonicalizer canonicalizer;
+    private GridTopology topology;
+    private CanonicalForm pending;
+
+    public SolutionLookup(SolutionCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Fills in {@code values} when an equivalent puzzle has been solved before. Otherwise remembers the puzzle,
+     * so that a solution found for it can be handed to {@link #store(int[])}.
+     *
+     * @return whether {@code values} now holds a solution
+     */
+    public boolean fill(GridTopology topology, int[] values) {
+        pending = null;
+        if (topology.blockDimension() < 2 || topology.blockDimension() > 3 || givens(values) < minimumGivens(topology)) {
+            return false;
+        }
+        CanonicalForm form = canonicalizerFor(topology).canonicalize(values);
+        int[] canonicalSolution = cache.get(form.key());
+        if (canonicalSolution == null) {
+            pending = form;
+            return false;
+        }
+        form.transform().restore(canonicalSolution, values);
+        return true;
+    }
+
+    /**
+     * Caches the solution of the puzzle last passed to {@link #fill(GridTopology, int[])}, if it was looked up
+     * and missed.
+     */
+    public void store(int[] solution) {
+        if (pending == null) {
+            return;
+        }
+        int[] canonicalSolution = new int[solution.length];
+        pending.transform().apply(solution, canonicalSolution);
+        cache.put(pending.key(), canonicalSolution);
+        pending = null;
+    }
+
+    private static int givens(int[] values) {
+        int givens = 0;
+        for (int value : values) {
+            if (value != 0) {
+                givens++;
+            }
+        }
+        return givens;
+    }
+
+    private static int minimumGivens(GridTopology topology) {
+        return topology.blockDimension() == 3 ? 17 : topology.dimension();
+    }
+
+    private Canonicalizer canonicalizerFor(GridTopology topology) {
+        if (canonicalizer == null || this.topology != topology) {
+            canonicalizer = new Canonicalizer(topology);
+            this.topology = topology;
+        }
+        return canonicalizer;
+    }
+
+}
@@ -0,0 +1,50 @@
+package io.hahai.sudoku.canonical;
+
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the first puzzle of each family of equivalent ones in a file:
+ * {@code SudokuDedupe <input|-> <output|-> [workers] [dimension]}.
+ */
+public final class SudokuDedupe {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: SudokuDedupe <input|-> <output|-> [workers] [dimension]");
+            System.exit(1);
+        }
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        GridTopology topology = GridTopology.forDimension(args.length > 3 ? Integer.parseInt(args[3]) : 9);
+        long start = System.nanoTime();
+        long written;
+        try (Reader in = new BufferedReader(new InputStreamReader(inputFor(args[0]), StandardCharsets.US_ASCII), 1 << 16);
+             Writer out = new BufferedWriter(new OutputStreamWriter(outputFor(args[1]), StandardCharsets.US_ASCII), 1 << 16);
+             PuzzleDeduplicator deduplicator = new PuzzleDeduplicator(topology, workers)) {
+            written = deduplicator.dedupe(in, out);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d distinct puzzles written in %.3fs%n", written, seconds);
+    }
+
+    private static InputStream inputFor(String name) throws IOException {
+        return "-".equals(name) ? System.in : new FileInputStream(name);
+    }
+
+    private static OutputStream outputFor(String name) throws IOException {
+        return "-".equals(name) ? System.out : new FileOutputStream(name);
+    }
+
+}
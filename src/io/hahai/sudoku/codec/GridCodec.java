@@ -0,0 +1,208 @@
+package io.hahai.sudoku.codec;
+
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * Packs grids of one topology into fixed size binary records: a format version byte, a dimension byte, a bitmap
+ * of the preset cells and then every value in as few bits as hold the dimension (four for a 9x9 grid, which
+ * comes to 54 bytes in all). Records are read and written in place on a {@link ByteBuffer}, advancing its
+ * position, so runs of them can be streamed through one buffer or a mapped file. Instances are immutable.
+ */
+public final class GridCodec {
+
+    public static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 2;
+
+    private final GridTopology topology;
+    private final int cells;
+    private final int bitsPerValue;
+    private final int presetBytes;
+    private final int encodedSize;
+
+    public GridCodec(GridTopology topology) {
+        if (topology.dimension() > 0xFF) {
+            throw new IllegalArgumentException("Dimension " + topology.dimension() + " does not fit the header");
+        }
+        this.topology = topology;
+        this.cells = topology.size();
+        this.bitsPerValue = 32 - Integer.numberOfLeadingZeros(topology.dimension());
+        this.presetBytes = (cells + 7) / 8;
+        this.encodedSize = HEADER_BYTES + presetBytes + (cells * bitsPerValue + 7) / 8;
+    }
+
+    /**
+     * @return the number of bytes every record of this topology takes
+     */
+    public int encodedSize() {
+        return encodedSize;
+    }
+
+    /**
+     * Writes a puzzle whose filled cells are all presets.
+     *
+     * @param values the puzzle row by row, 0 for an empty cell
+     */
+    public void encode(int[] values, ByteBuffer target) {
+        if (values.length != cells) {
+            throw new IllegalArgumentException(values.length + " values do not fill a grid of dimension " + topology.dimension());
+        }
+        for (int value : values) {
+            checkValue(value);
+        }
+        startRecord(target);
+        for (int start = 0; start < cells; start += 8) {
+            int bits = 0;
+            for (int i = start; i < Math.min(cells, start + 8); i++) {
+                if (values[i] != 0) {
+                    bits |= 1 << (i - start);
+                }
+            }
+            target.put((byte) bits);
+        }
+        long pending = 0;
+        int pendingBits = 0;
+        for (int value : values) {
+            pending |= (long) value << pendingBits;
+            pendingBits += bitsPerValue;
+            while (pendingBits >= 8) {
+                target.put((byte) pending);
+                pending >>>= 8;
+                pendingBits -= 8;
+            }
+        }
+        if (pendingBits > 0) {
+            target.put((byte) pending);
+        }
+    }
+
+    /**
+     * Writes a grid as it stands, keeping which of its cells are presets.
+     */
+    public void encode(Grid grid, ByteBuffer target) {
+        if (grid.size() != cells || grid.dimension() != topology.dimension()) {
+            throw new IllegalArgumentException("Grid of " + grid.size() + " cells does not match dimension " + topology.dimension());
+        }
+        for (int i = 0; i < cells; i++) {
+            checkValue(grid.getValueAt(i));
+        }
+        startRecord(target);
+        for (int start = 0; start < cells; start += 8) {
+            int bits = 0;
+            for (int i = start; i < Math.min(cells, start + 8); i++) {
+                if (!grid.cellPlayable(i)) {
+                    bits |= 1 << (i - start);
+                }
+            }
+            target.put((byte) bits);
+        }
+        long pending = 0;
+        int pendingBits = 0;
+        for (int i = 0; i < cells; i++) {
+            pending |= (long) grid.getValueAt(i) << pendingBits;
+            pendingBits += bitsPerValue;
+            while (pendingBits >= 8) {
+                target.put((byte) pending);
+                pending >>>= 8;
+                pendingBits -= 8;
+            }
+        }
+        if (pendingBits > 0) {
+            target.put((byte) pending);
+        }
+    }
+
+    /**
+     * Reads a record's values into {@code values}, skipping over its presets.
+     */
+    public void decode(ByteBuffer source, int[] values) {
+        if (values.length != cells) {
+            throw new IllegalArgumentException(values.length + " values do not fill a grid of dimension " + topology.dimension());
+        }
+        startReading(source);
+        source.position(source.position() + presetBytes);
+        readValues(source, values);
+    }
+
+    /**
+     * Reads a record back into a grid, with the same presets it was written with.
+     */
+    public Grid decode(ByteBuffer source) {
+        startReading(source);
+        BitSet presets = new BitSet(cells);
+        for (int start = 0; start < cells; start += 8) {
+            int bits = source.get() & 0xFF;
+            while (bits != 0) {
+                presets.set(start + Integer.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        int[] values = new int[cells];
+        readValues(source, values);
+        return new Grid(topology, values, presets);
+    }
+
+    /**
+     * @return the dimension of the record starting at the buffer's position, which is left where it was
+     */
+    public static int dimensionOf(ByteBuffer source) {
+        if (source.remaining() < HEADER_BYTES) {
+            throw new BufferUnderflowException();
+        }
+        int version = source.get(source.position()) & 0xFF;
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown grid format version " + version);
+        }
+        return source.get(source.position() + 1) & 0xFF;
+    }
+
+    private void startRecord(ByteBuffer target) {
+        if (target.remaining() < encodedSize) {
+            throw new BufferOverflowException();
+        }
+        target.put((byte) FORMAT_VERSION);
+        target.put((byte) topology.dimension());
+    }
+
+    private void startReading(ByteBuffer source) {
+        int dimension = dimensionOf(source);
+        if (dimension != topology.dimension()) {
+            throw new IllegalArgumentException("Record of dimension " + dimension + " cannot be read as dimension " + topology.dimension());
+        }
+        if (source.remaining() < encodedSize) {
+            throw new BufferUnderflowException();
+        }
+        source.position(source.position() + HEADER_BYTES);
+    }
+
+    private void readValues(ByteBuffer source, int[] values) {
+        int mask = (1 << bitsPerValue) - 1;
+        long pending = 0;
+        int pendingBits = 0;
+        for (int i = 0; i < cells; i++) {
+            while (pendingBits < bitsPerValue) {
+                pending |= (long) (source.get() & 0xFF) << pendingBits;
+                pendingBits += 8;
+            }
+            int value = (int) pending & mask;
+            if (value > topology.dimension()) {
+                throw new IllegalArgumentException("Value " + value + " at cell " + i + " is out of range");
+            }
+            values[i] = value;
+            pending >>>= bitsPerValue;
+            pendingBits -= bitsPerValue;
+        }
+    }
+
+    private void checkValue(int value) {
+        if (value < 0 || value > topology.dimension()) {
+            throw new IllegalArgumentException("Value " + value + " cannot be held on a grid of dimension " + topology.dimension());
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package io.hahai.sudoku.generator;
+
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates puzzles on a fixed pool of workers, each keeping its own {@link PuzzleGenerator} for the life of
+ * the pool. Which worker builds which puzzle is up to the scheduler, so output is not repeatable from a seed.
+ */
+public final class ParallelPuzzleGenerator implements AutoCloseable {
+
+    private static final int WRITE_BATCH = 1024;
+
+    private final GridTopology topology;
+    private final ExecutorService executor;
+    private final BlockingQueue<PuzzleGenerator> idleGenerators;
+
+    public ParallelPuzzleGenerator(GridTopology topology, Symmetry symmetry, int workers) {
+        this(topology, symmetry, workers, System.nanoTime());
+    }
+
+    public ParallelPuzzleGenerator(GridTopology topology, Symmetry symmetry, int workers, long seed) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Workers must be positive");
+        }
+        this.topology = topology;
+        this.executor = Executors.newFixedThreadPool(workers);
+        this.idleGenerators = new ArrayBlockingQueue<>(workers);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int worker = 0; worker < workers; worker++) {
+            idleGenerators.add(new PuzzleGenerator(topology, symmetry, seeds.nextLong()));
+        }
+    }
+
+    public List<int[]> generate(int count) throws IOException {
+        List<Future<int[]>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(executor.submit(this::generateOne));
+        }
+        List<int[]> reply = new ArrayList<>(count);
+        for (Future<int[]> future : futures) {
+            reply.add(await(future));
+        }
+        return reply;
+    }
+
+    /**
+     * Writes {@code count} puzzles, one {@link PuzzleText#line line} each.
+     *
+     * @throws IllegalArgumentException before any puzzle is generated, when the grids have no text form
+     */
+    public void generate(int count, Writer out) throws IOException, IllegalArgumentException {
+        PuzzleText.checkWritable(topology);
+        for (int written = 0; written < count; ) {
+            int batch = Math.min(WRITE_BATCH, count - written);
+            for (int[] puzzle : generate(batch)) {
+                out.write(PuzzleText.line(topology, puzzle));
+                out.write('\n');
+            }
+            written += batch;
+        }
+        out.flush();
+    }
+
+    @Override public void close() {
+        executor.shutdown();
+    }
+
+    private int[] generateOne() throws InterruptedException {
+        PuzzleGenerator generator = idleGenerators.take();
+        try {
+            return generator.generate();
+        } finally {
+            idleGenerators.add(generator);
+        }
+    }
+
+    private static int[] await(Future<int[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package io.hahai.sudoku.generator;
+
+import io.hahai.sudoku.grid.GridTopology;
+import io.hahai.sudoku.solver.BacktrackingSolver;
+import io.hahai.sudoku.solver.CandidateState;
+import io.hahai.sudoku.solver.ConstraintPropagator;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Builds puzzles with exactly one solution: a random (though not uniformly drawn) full grid is filled in, then
+ * groups of clues chosen by the {@link Symmetry} are cleared in random order, putting back any group whose
+ * removal lets a second solution in. Instances are not thread safe; see {@link ParallelPuzzleGenerator} for generating on many cores.
+ */
+public final class PuzzleGenerator {
+
+    private final GridTopology topology;
+    private final int[][] orbits;
+    private final SplittableRandom random;
+    private final CandidateState state;
+    private final BacktrackingSolver solver;
+    private final int[] solution;
+
+    public PuzzleGenerator(GridTopology topology, Symmetry symmetry, long seed) {
+        this.topology = topology;
+        this.orbits = symmetry.orbits(topology);
+        this.random = new SplittableRandom(seed);
+        this.state = new CandidateState(topology);
+        this.solver = new BacktrackingSolver(ConstraintPropagator.standard());
+        this.solution = new int[topology.size()];
+    }
+
+    public GridTopology topology() {
+        return topology;
+    }
+
+    /**
+     * @return the givens of a new puzzle, row by row, with 0 for the cells left to play
+     */
+    public int[] generate() {
+        fillSolution();
+        int[] puzzle = solution.clone();
+        shuffle(orbits);
+        for (int[] orbit : orbits) {
+            for (int cell : orbit) {
+                puzzle[cell] = 0;
+            }
+            if (!isUnique(puzzle)) {
+                for (int cell : orbit) {
+                    puzzle[cell] = solution[cell];
+                }
+            }
+        }
+        return puzzle;
+    }
+
+    /**
+     * @return the solution of the puzzle last returned by {@link #generate()}
+     */
+    public int[] solution() {
+        return solution.clone();
+    }
+
+    private boolean isUnique(int[] puzzle) {
+        return state.load(puzzle) && solver.countSolutions(state, 2) == 1;
+    }
+
+    /**
+     * The blocks on the main diagonal share no row, column or block, so each can be filled with its own random
+     * permutation before the search completes the rest of the grid. The search is deterministic, so each seed of
+     * the diagonal blocks always completes to the same grid, the first its candidate order reaches: full grids
+     * are not drawn uniformly, and those a seed can complete in many ways are no likelier than those it can
+     * complete in one. That is fine for puzzles to play, not for sampling grids statistically.
+     */
+    private void fillSolution() {
+        int[] values = new int[topology.dimension()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 1;
+        }
+        do {
+            Arrays.fill(solution, 0);
+            state.load(solution);
+            for (int b = 0; b < topology.blockDimension(); b++) {
+                shuffle(values);
+                int[] block = topology.block(b * topology.blockDimension() + b);
+                for (int i = 0; i < block.length; i++) {
+                    state.place(block[i], values[i]);
+                }
+            }
+        } while (!solver.solve(state));
+        state.copyValuesTo(solution);
+    }
+
+    private void shuffle(int[] values) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+    private void shuffle(int[][] values) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int[] swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package io.hahai.sudoku.generator;
+
+import io.hahai.sudoku.grid.GridTopology;
+
+/**
+ * Writes puzzles in the text {@code Grid(Reader)} reads: one character per cell, {@code .} for an empty cell.
+ * Only digits are read back, so grids larger than 9x9 have no text form.
+ */
+public final class PuzzleText {
+
+    private PuzzleText() {
+    }
+
+    /**
+     * The puzzle on a single line, as read by {@code SudokuBatch}.
+     */
+    public static String line(GridTopology topology, int[] values) {
+        checkWritable(topology, values);
+        StringBuilder builder = new StringBuilder(values.length);
+        for (int value : values) {
+            builder.append(charFor(value));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The puzzle laid out in rows with block borders, as in {@code game.sudoku}.
+     */
+    public static String boxed(GridTopology topology, int[] values) {
+        checkWritable(topology, values);
+        int n = topology.dimension();
+        int b = topology.blockDimension();
+        StringBuilder builder = new StringBuilder();
+        builder.append(border(b, '┌', '┬', '┐'));
+        for (int row = 0; row < n; row++) {
+            if (row > 0 && row % b == 0) {
+                builder.append(border(b, '├', '┼', '┤'));
+            }
+            for (int column = 0; column < n; column++) {
+                builder.append(column % b == 0 ? "│ " : "").append(charFor(values[row * n + column])).append(' ');
+            }
+            builder.append("│\n");
+        }
+        return builder.append(border(b, '└', '┴', '┘')).toString();
+    }
+
+    private static String border(int blockDimension, char left, char middle, char right) {
+        StringBuilder builder = new StringBuilder().append(left);
+        for (int block = 0; block < blockDimension; block++) {
+            if (block > 0) {
+                builder.append(middle);
+            }
+            for (int i = 0; i < 2 * blockDimension + 1; i++) {
+                builder.append('─');
+            }
+        }
+        return builder.append(right).append('\n').toString();
+    }
+
+    private static char charFor(int value) {
+        return value == 0 ? '.' : (char) ('0' + value);
+    }
+
+    /**
+     * @throws IllegalArgumentException when grids of this topology have no text form
+     */
+    static void checkWritable(GridTopology topology) throws IllegalArgumentException {
+        if (topology.dimension() > 9) {
+            throw new IllegalArgumentException("Grids of dimension " + topology.dimension() + " have no text form");
+        }
+    }
+
+    private static void checkWritable(GridTopology topology, int[] values) {
+        checkWritable(topology);
+        if (values.length != topology.size()) {
+            throw new IllegalArgumentException(values.length + " values do not fill a grid of " + topology.size() + " cells");
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package io.hahai.sudoku.generator;
+
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes one-line puzzles with unique solutions:
+ * {@code SudokuGenerator <count> <output|-> [symmetry] [workers] [dimension]}. Puzzles are written one digit per
+ * cell, so the dimension can be at most 9.
+ */
+public final class SudokuGenerator {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: SudokuGenerator <count> <output|-> [NONE|ROTATIONAL|QUARTER_TURN|MIRROR|DIAGONAL] [workers] [dimension]");
+            System.exit(1);
+        }
+        int count = Integer.parseInt(args[0]);
+        Symmetry symmetry = args.length > 2 ? Symmetry.valueOf(args[2]) : Symmetry.NONE;
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        GridTopology topology = GridTopology.forDimension(args.length > 4 ? Integer.parseInt(args[4]) : 9);
+        PuzzleText.checkWritable(topology);
+        long start = System.nanoTime();
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(outputFor(args[1]), StandardCharsets.US_ASCII));
+             ParallelPuzzleGenerator generator = new ParallelPuzzleGenerator(topology, symmetry, workers)) {
+            generator.generate(count, out);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d puzzles in %.3fs (%.0f/s)%n", count, seconds, count / seconds);
+    }
+
+    private static OutputStream outputFor(String name) throws IOException {
+        return "-".equals(name) ? System.out : new FileOutputStream(name);
+    }
+
+}
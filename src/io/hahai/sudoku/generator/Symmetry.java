@@ -0,0 +1,59 @@
+package io.hahai.sudoku.generator;
+
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.util.Arrays;
+
+/**
+ * Which clues a {@link PuzzleGenerator} removes together, so the givens of its puzzles keep the pattern.
+ */
+public enum Symmetry {
+    NONE {
+        @Override int[] orbit(int row, int column, int n) {
+            return new int[]{row * n + column};
+        }
+    },
+    ROTATIONAL {
+        @Override int[] orbit(int row, int column, int n) {
+            return new int[]{row * n + column, (n - 1 - row) * n + (n - 1 - column)};
+        }
+    },
+    QUARTER_TURN {
+        @Override int[] orbit(int row, int column, int n) {
+            return new int[]{row * n + column, column * n + (n - 1 - row),
+                    (n - 1 - row) * n + (n - 1 - column), (n - 1 - column) * n + row};
+        }
+    },
+    MIRROR {
+        @Override int[] orbit(int row, int column, int n) {
+            return new int[]{row * n + column, row * n + (n - 1 - column)};
+        }
+    },
+    DIAGONAL {
+        @Override int[] orbit(int row, int column, int n) {
+            return new int[]{row * n + column, column * n + row};
+        }
+    };
+
+    abstract int[] orbit(int row, int column, int n);
+
+    /**
+     * Splits the cells of the topology into the groups that are cleared together, each cell in exactly one.
+     */
+    int[][] orbits(GridTopology topology) {
+        int n = topology.dimension();
+        boolean[] seen = new boolean[topology.size()];
+        int[][] reply = new int[topology.size()][];
+        int count = 0;
+        for (int cell = 0; cell < topology.size(); cell++) {
+            if (!seen[cell]) {
+                int[] orbit = Arrays.stream(orbit(cell / n, cell % n, n)).distinct().toArray();
+                for (int member : orbit) {
+                    seen[member] = true;
+                }
+                reply[count++] = orbit;
+            }
+        }
+        return Arrays.copyOf(reply, count);
+    }
+}
@@ -0,0 +1,31 @@
+package io.hahai.sudoku.grid;
+
+/**
+ * Bit helpers for candidate masks, where value {@code v} is held in bit {@code v - 1}.
+ */
+public final class Candidates {
+
+    private Candidates() {
+    }
+
+    public static int bitFor(int value) {
+        return 1 << (value - 1);
+    }
+
+    public static int allFor(int dimension) {
+        return (1 << dimension) - 1;
+    }
+
+    public static int count(int mask) {
+        return Integer.bitCount(mask);
+    }
+
+    public static int lowestValue(int mask) {
+        return Integer.numberOfTrailingZeros(mask) + 1;
+    }
+
+    public static boolean contains(int mask, int value) {
+        return (mask & bitFor(value)) != 0;
+    }
+
+}
@@ -3,14 +3,19 @@ package io.hahai.sudoku.grid;
 public final class Cell {
 
     private final int index;
-    private Grid.CellState state;
-    private int numericValue;
-    private boolean valid = false;
+    private final Grid.CellState state;
+    private final int numericValue;
+    private final boolean valid;
 
-    public Cell(int index, Grid.CellState state, int numericValue) {
+    public Cell(int index, Grid.CellState state, int numericValue, boolean valid) {
         this.index = index;
         this.state = state;
         this.numericValue = numericValue;
+        this.valid = valid;
+    }
+
+    public Cell(int index, Grid.CellState state, int numericValue) {
+        this(index, state, numericValue, false);
     }
 
     public Cell(int index) {
@@ -27,7 +32,5 @@ public final class Cell {
     }
 
     public boolean isValid() { return valid; }
-    public void invalid() { this.valid = false; }
-    public void valid() { this.valid = true; }
 
 }
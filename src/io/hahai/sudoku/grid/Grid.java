@@ -1,13 +1,17 @@
 package io.hahai.sudoku.grid;
 
+import io.hahai.sudoku.solver.BacktrackingSolver;
+import io.hahai.sudoku.solver.ConstraintPropagator;
 import io.hahai.sudoku.solver.Solver;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -18,12 +22,53 @@ public final class Grid {
 
     public enum CellState {PRESET, PLAYABLE}
 
-    private List<Cell> cells;
+    private GridTopology topology;
+    private byte[] values;
+    private BitSet presets;
+    private BitSet validity;
+    private int cellCount;
+    private int[] rowOccupancy;
+    private int[] columnOccupancy;
+    private int[] blockOccupancy;
+    private int[] rowCounts;
+    private int[] columnCounts;
+    private int[] blockCounts;
+    private int emptyCells;
+    private int repeatedValues;
+    private int outOfRangeValues;
+    private long version;
+    private MoveJournal journal;
 
     public Grid(Reader reader) throws IllegalArgumentException {
-        resetWith(reader);
-        gridDimension = (int) Math.sqrt(cells.size());
+        loadCellsFrom(reader);
+        gridDimension = (int) Math.sqrt(cellCount);
         blockDimension = (int) Math.sqrt(gridDimension);
+        topology = isSquare() ? GridTopology.forDimension(gridDimension) : null;
+        indexOccupancy();
+    }
+
+    /**
+     * @param cellValues the value of each cell, 0 when empty
+     * @param cellPresets the cells given by the puzzle, which cannot be played
+     */
+    public Grid(GridTopology topology, int[] cellValues, BitSet cellPresets) throws IllegalArgumentException {
+        if (cellValues.length != topology.size()) {
+            throw new IllegalArgumentException(cellValues.length + " values do not fill a grid of dimension " + topology.dimension());
+        }
+        values = new byte[cellValues.length];
+        for (int i = 0; i < cellValues.length; i++) {
+            if (cellValues[i] < 0 || cellValues[i] > topology.dimension()) {
+                throw new IllegalArgumentException("Value " + cellValues[i] + " cannot be held on a grid of dimension " + topology.dimension());
+            }
+            values[i] = (byte) cellValues[i];
+        }
+        presets = cellPresets.get(0, cellValues.length);
+        validity = new BitSet(cellValues.length);
+        cellCount = cellValues.length;
+        gridDimension = topology.dimension();
+        blockDimension = topology.blockDimension();
+        this.topology = topology;
+        indexOccupancy();
     }
 
     public static Reader defaultGameReader() {
@@ -31,24 +76,38 @@ public final class Grid {
     }
 
     public void resetWith(Reader reader) {
-        cells = new CopyOnWriteArrayList<>();
         loadCellsFrom(reader);
+        indexOccupancy();
+        forgetMoves();
+        version++;
     }
 
     public int dimension() {
         return gridDimension;
     }
 
+    public GridTopology topology() throws IllegalStateException {
+        if (!isWellFormed()) {
+            throw new IllegalStateException("Grid of " + cellCount + " cells has no sudoku topology");
+        }
+        return topology;
+    }
+
     public List<Cell> playableCells() {
-        return cells.stream().filter(cell -> cell.getState() == CellState.PLAYABLE).collect(Collectors.toList());
+        List<Cell> reply = new ArrayList<>(cellCount - presets.cardinality());
+        for (int i = presets.nextClearBit(0); i < cellCount; i = presets.nextClearBit(i + 1)) {
+            reply.add(cellAt(i));
+        }
+        return reply;
     }
 
     public int size() {
-        return cells.size();
+        return cellCount;
     }
 
     public int getValueAt(int index) {
-        return cells.get(index).getValue();
+        checkIndex(index);
+        return values[index];
     }
 
     public void applySolvers(Solver... solvers) {
@@ -60,80 +119,192 @@ public final class Grid {
         }
     }
 
+    /**
+     * @return the cells whose value or validity the move changed, the played cell first when it is one of them
+     */
     public List<Cell> play(int cellIndex, int value) {
-        clearCell(cellIndex);
-        setValueOfCell(cellIndex, playedCell(cellIndex, value));
-        return validateGridAndFlagRepetitionsIgnoringZeroes();
+        if (value < 0 || value > gridDimension) {
+            throw new IllegalArgumentException("Value " + value + " cannot be played on a grid of dimension " + gridDimension);
+        }
+        int previous = getValueAt(cellIndex);
+        if (journal != null) {
+            journal.record(cellIndex, previous, presets.get(cellIndex), value);
+        }
+        values[cellIndex] = (byte) value;
+        presets.clear(cellIndex);
+        version++;
+        List<Cell> changed = new ArrayList<>();
+        if (!isWellFormed()) {
+            if (previous != value) {
+                changed.add(cellAt(cellIndex));
+            }
+            return changed;
+        }
+        tally(cellIndex, previous, -1);
+        tally(cellIndex, value, 1);
+        if (flagValidityOf(cellIndex) || previous != value) {
+            changed.add(cellAt(cellIndex));
+        }
+        for (int peer : topology.peers(cellIndex)) {
+            if (flagValidityOf(peer)) {
+                changed.add(cellAt(peer));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Starts or stops keeping moves for {@link #undo()}, {@link #redo()} and {@link #rollbackTo(int)}; stopping
+     * drops the moves kept. Grids keep nothing until asked, so solvers and generators playing millions of moves
+     * pay nothing for it, and even then only the last few thousand moves are kept.
+     */
+    public void keepMoves(boolean keep) {
+        if (!keep) {
+            journal = null;
+        } else if (journal == null) {
+            journal = new MoveJournal();
+        }
+    }
+
+    /**
+     * Drops the moves kept so far, say once the grid is complete, while still keeping those to come.
+     */
+    public void forgetMoves() {
+        if (journal != null) {
+            journal.clear();
+        }
+    }
+
+    /**
+     * Takes back the last move not already undone, restoring the cell's value and whether it was a preset.
+     * Validity is worked out again for the cell and its peers, so this costs the same as a move and allocates
+     * nothing.
+     *
+     * @return the cell changed, or -1 when there is no move to undo
+     */
+    public int undo() {
+        if (journal == null || !journal.canUndo()) {
+            return -1;
+        }
+        long move = journal.undo();
+        return restore(MoveJournal.cellOf(move), MoveJournal.previousOf(move), MoveJournal.wasPreset(move));
+    }
+
+    /**
+     * Plays the last undone move again. Any new move drops the moves that could have been redone.
+     *
+     * @return the cell changed, or -1 when there is no move to redo
+     */
+    public int redo() {
+        if (journal == null || !journal.canRedo()) {
+            return -1;
+        }
+        long move = journal.redo();
+        return restore(MoveJournal.cellOf(move), MoveJournal.playedOf(move), false);
+    }
+
+    /**
+     * @return a mark to later {@link #rollbackTo(int)}, so search code can try moves without copying the grid;
+     *         moves must be {@link #keepMoves(boolean) kept} first
+     */
+    public int mark() throws IllegalStateException {
+        return keptMoves().position();
+    }
+
+    /**
+     * Undoes moves until the grid is as it was when {@code mark} was taken.
+     */
+    public void rollbackTo(int mark) throws IllegalArgumentException, IllegalStateException {
+        MoveJournal journal = keptMoves();
+        if (mark < journal.oldest() || mark > journal.position()) {
+            throw new IllegalArgumentException("Mark " + mark + " is not between the oldest move kept " + journal.oldest()
+                    + " and the last move " + journal.position());
+        }
+        while (journal.position() > mark) {
+            undo();
+        }
+    }
+
+    private MoveJournal keptMoves() {
+        if (journal == null) {
+            throw new IllegalStateException("Moves are not being kept on this grid");
+        }
+        return journal;
+    }
+
+    /**
+     * @return a count that goes up with every move and reset, so clients can tell which state is newer
+     */
+    public long version() {
+        return version;
     }
 
     public List<Integer> playableOptions(int cellIndex) {
-        if (cellPlayable(cellIndex)) {
-            List<Integer> reply = create1ToNList(gridDimension);
-            reply.removeAll(getColumnForCell(cellIndex));
-            reply.removeAll(getBlockForCell(cellIndex));
-            reply.removeAll(getRowForCell(cellIndex));
-            return reply;
+        int mask = candidateMask(cellIndex);
+        List<Integer> reply = new ArrayList<>(Candidates.count(mask));
+        while (mask != 0) {
+            reply.add(Candidates.lowestValue(mask));
+            mask &= mask - 1;
+        }
+        return reply;
+    }
+
+    public int candidateMask(int cellIndex) {
+        if (!cellPlayable(cellIndex) || !isWellFormed()) {
+            return 0;
         }
-        return new ArrayList<>();
+        int occupied = rowOccupancy[topology.rowOf(cellIndex)] | columnOccupancy[topology.columnOf(cellIndex)] | blockOccupancy[topology.blockOf(cellIndex)];
+        return Candidates.allFor(gridDimension) & ~occupied;
+    }
+
+    public int candidateCount(int cellIndex) {
+        return Candidates.count(candidateMask(cellIndex));
     }
 
     public boolean cellPlayable(int cellIndex) {
-        CellState state = getCell(cellIndex).getState();
-        return state == CellState.PLAYABLE;
+        checkIndex(cellIndex);
+        return !presets.get(cellIndex);
     }
 
     public boolean isGridInitialisedCorrectly() {
-        boolean isSquare = gridDimension == (blockDimension * blockDimension) && cells.size() == (gridDimension * gridDimension);
-        return isSquare && !hasRepetitionInGridIgnoreZeroes();
+        return isSquare() && isWellFormed() && repeatedValues == 0 && outOfRangeValues == 0;
     }
 
     public boolean isGridCompleteAndCorrect() {
-        List<Cell> validated = validateGridAndFlagRepetitionsIgnoringZeroes();
-        return !hasZeroedCellsInGrid() && isAllValid(validated);
+        return isWellFormed() && emptyCells == 0 && repeatedValues == 0 && outOfRangeValues == 0;
+    }
+
+    /**
+     * Counts the ways the empty cells can be filled, giving up once {@code limit} have been found. Callers
+     * checking many puzzles should hold on to a {@link BacktrackingSolver} and use its counting mode instead.
+     */
+    public int countSolutions(int limit) {
+        if (!isGridInitialisedCorrectly()) {
+            return 0;
+        }
+        return new BacktrackingSolver(ConstraintPropagator.standard()).countSolutions(this, limit);
+    }
+
+    public boolean hasUniqueSolution() {
+        return countSolutions(2) == 1;
     }
 
     public void accept(SudokuCellVisitor visitor) {
-        cells.forEach(visitor::visit);
+        for (int i = 0; i < cellCount; i++) {
+            visitor.visit(cellAt(i));
+        }
     }
 
     List<Integer> getBlockForCell(int cellIndex) {
-        List<Integer> reply = new ArrayList<>(gridDimension);
-        int current = blockNumberStartFrom(cellIndex);
-        for (int i = 1; i <= gridDimension; i++) {
-            final Integer value = cells.get(current).getValue();
-            reply.add(value);
-            if (((i % blockDimension) == 0)) {
-                current += (gridDimension - blockDimension + 1);
-            } else {
-                current += 1;
-            }
-        }
-        return reply;
+        return valuesOf(topology.block(topology.blockOf(cellIndex)));
     }
 
     List<Integer> getRowForCell(int cellIndex) {
-        int rowLocation = rowNumberFrom(cellIndex) * gridDimension;
-        List<Integer> reply = new ArrayList<>(gridDimension);
-        int count = 0;
-        while (count < gridDimension) {
-            final int i = rowLocation + count;
-            Cell cell = cells.get(i);
-            reply.add(cell.getValue());
-            count++;
-        }
-        return reply;
+        return valuesOf(topology.row(topology.rowOf(cellIndex)));
     }
 
     List<Integer> getColumnForCell(int cellIndex) {
-        int columnLocation = columnNumberFrom(cellIndex);
-        List<Integer> reply = new ArrayList<>(gridDimension);
-        int count = 0;
-        while (count < gridDimension) {
-            final int i = columnLocation + (count * gridDimension);
-            reply.add(cells.get(i).getValue());
-            count++;
-        }
-        return reply;
+        return valuesOf(topology.column(topology.columnOf(cellIndex)));
     }
 
     List<Integer> create1ToNList(int n) throws IllegalArgumentException {
@@ -145,101 +316,155 @@ public final class Grid {
     }
 
     int blockNumberStartFrom(int cellIndex) {
-        int blockRowSize = blockDimension * gridDimension;
-        return blockRowSize * (cellIndex / blockRowSize) + blockDimension * ((cellIndex % gridDimension) / blockDimension);
+        return topology.block(topology.blockOf(cellIndex))[0];
     }
 
-    private List<Cell> validateGridAndFlagRepetitionsIgnoringZeroes() {
-        List<Cell> playableCells = playableCells();
-        playableCells.forEach(cell -> {
-            if (cellHasRepetitionIgnoreZeroes(cell) && !isCellEmpty(cell)) {
-                cell.invalid();
-            } else {
-                cell.valid();
-            }
-        });
-        return playableCells;
+    private boolean isSquare() {
+        return gridDimension > 0 && gridDimension == (blockDimension * blockDimension) && cellCount == (gridDimension * gridDimension);
     }
 
-    private boolean isCellEmpty(Cell cell) {
-        return cell.getValue() == 0;
+    private boolean isWellFormed() {
+        return topology != null && gridDimension < Integer.SIZE && cellCount == topology.size();
     }
 
-    private boolean isAllValid(List<Cell> validated) {return validated.stream().allMatch(Cell::isValid);}
-
-    private boolean hasRepetitionInGridIgnoreZeroes() {
-        for (Cell cell : cells) {
-            if (cellHasRepetitionIgnoreZeroes(cell)) {
-                return true;
-            }
+    private List<Integer> valuesOf(int[] unit) {
+        List<Integer> reply = new ArrayList<>(unit.length);
+        for (int cell : unit) {
+            reply.add((int) values[cell]);
         }
-        return false;
+        return reply;
     }
 
-    private boolean cellHasRepetitionIgnoreZeroes(Cell cell) {
-        List<Integer> row = getRowForCell(cell.getIndex());
-        List<Integer> block = getBlockForCell(cell.getIndex());
-        List<Integer> column = getColumnForCell(cell.getIndex());
-        return hasRepetitionIgnoreZeroes(row, cell) || hasRepetitionIgnoreZeroes(block, cell) || hasRepetitionIgnoreZeroes(column, cell);
+    private void indexOccupancy() {
+        emptyCells = 0;
+        repeatedValues = 0;
+        outOfRangeValues = 0;
+        if (!isWellFormed()) {
+            rowOccupancy = columnOccupancy = blockOccupancy = new int[0];
+            rowCounts = columnCounts = blockCounts = new int[0];
+            return;
+        }
+        rowOccupancy = new int[gridDimension];
+        columnOccupancy = new int[gridDimension];
+        blockOccupancy = new int[gridDimension];
+        rowCounts = new int[gridDimension * gridDimension];
+        columnCounts = new int[gridDimension * gridDimension];
+        blockCounts = new int[gridDimension * gridDimension];
+        for (int i = 0; i < cellCount; i++) {
+            tally(i, values[i], 1);
+        }
+        for (int i = 0; i < cellCount; i++) {
+            flagValidityOf(i);
+        }
     }
 
-    private boolean hasRepetitionIgnoreZeroes(List<Integer> cellValues, Cell cell) {
-        cellValues.removeAll(Collections.singletonList(0));
-
-        Set<Integer> allItems = new HashSet<>();
-        Set<Integer> duplicates = cellValues.stream().filter(n -> !allItems.add(n)) //Set.add() returns false if the item was already in the set.
-                .collect(Collectors.toSet());
+    private void tally(int cellIndex, int value, int delta) {
+        if (value == 0) {
+            emptyCells += delta;
+        } else if (value <= gridDimension) {
+            tallyUnit(rowCounts, rowOccupancy, topology.rowOf(cellIndex), value, delta);
+            tallyUnit(columnCounts, columnOccupancy, topology.columnOf(cellIndex), value, delta);
+            tallyUnit(blockCounts, blockOccupancy, topology.blockOf(cellIndex), value, delta);
+        } else {
+            outOfRangeValues += delta;
+        }
+    }
 
-        return duplicates.contains(cell.getValue());
+    private void tallyUnit(int[] counts, int[] occupancy, int unit, int value, int delta) {
+        int slot = unit * gridDimension + value - 1;
+        int before = counts[slot];
+        int after = before + delta;
+        counts[slot] = after;
+        if (before == 0) {
+            occupancy[unit] |= Candidates.bitFor(value);
+        } else if (after == 0) {
+            occupancy[unit] &= ~Candidates.bitFor(value);
+        }
+        if (before < 2 && after >= 2) {
+            repeatedValues++;
+        } else if (before >= 2 && after < 2) {
+            repeatedValues--;
+        }
     }
 
-    private boolean hasZeroedCellsInGrid() {
-        return cells.stream().anyMatch(cell -> cell.getValue() == 0);
+    /**
+     * @return true when the cell's validity changed
+     */
+    private boolean flagValidityOf(int cellIndex) {
+        boolean valid = !isRepeatedIgnoringZeroes(cellIndex, values[cellIndex]);
+        if (validity.get(cellIndex) == valid) {
+            return false;
+        }
+        validity.set(cellIndex, valid);
+        return true;
     }
 
-    private int columnNumberFrom(int cellIndex) {
-        return cellIndex % gridDimension;
+    private boolean isRepeatedIgnoringZeroes(int cellIndex, int value) {
+        if (value == 0) {
+            return false;
+        }
+        if (value > gridDimension) {
+            return true;
+        }
+        int offset = value - 1;
+        return rowCounts[topology.rowOf(cellIndex) * gridDimension + offset] > 1
+                || columnCounts[topology.columnOf(cellIndex) * gridDimension + offset] > 1
+                || blockCounts[topology.blockOf(cellIndex) * gridDimension + offset] > 1;
     }
 
-    private int rowNumberFrom(int cellIndex) {
-        return (cellIndex / gridDimension);
+    private int restore(int cellIndex, int value, boolean preset) {
+        int current = values[cellIndex];
+        values[cellIndex] = (byte) value;
+        presets.set(cellIndex, preset);
+        version++;
+        if (isWellFormed()) {
+            tally(cellIndex, current, -1);
+            tally(cellIndex, value, 1);
+            flagValidityOf(cellIndex);
+            for (int peer : topology.peers(cellIndex)) {
+                flagValidityOf(peer);
+            }
+        }
+        return cellIndex;
     }
 
-    private Cell getCell(int cellIndex) throws IllegalArgumentException {
-        try {
-            return cells.get(cellIndex);
-        } catch (IndexOutOfBoundsException e) {
+    private void checkIndex(int cellIndex) throws IllegalArgumentException {
+        if (cellIndex < 0 || cellIndex >= cellCount) {
             throw new IllegalArgumentException("No cell found for cell index: " + cellIndex);
         }
     }
 
-    private Cell playedCell(int cellIndex, int value) {return new Cell(cellIndex, CellState.PLAYABLE, value);}
-
-    private void setValueOfCell(int cellIndex, Cell element) {cells.set(cellIndex, element);}
-
-    private void clearCell(int cellIndex) {
-        setValueOfCell(cellIndex, emptyPlayableCell(cellIndex));
+    private Cell cellAt(int cellIndex) {
+        CellState state = presets.get(cellIndex) ? CellState.PRESET : CellState.PLAYABLE;
+        return new Cell(cellIndex, state, values[cellIndex], validity.get(cellIndex));
     }
 
-    private Cell emptyPlayableCell(int cellIndex) {return new Cell(cellIndex);}
-
     private void loadCellsFrom(Reader reader) throws IllegalArgumentException {
+        byte[] loaded = new byte[128];
+        BitSet loadedPresets = new BitSet();
         int current;
         int count = 0;
         try {
             while ((current = reader.read()) != -1) {
                 char c = (char) current;
-                if ('.' == c) {
-                    cells.add(emptyPlayableCell(count));
-                    count++;
-                } else if (Character.isDigit(c)) {
-                    cells.add(new Cell(count, CellState.PRESET, Character.getNumericValue(c)));
+                if ('.' == c || Character.isDigit(c)) {
+                    if (count == loaded.length) {
+                        loaded = Arrays.copyOf(loaded, count * 2);
+                    }
+                    if ('.' != c) {
+                        loaded[count] = (byte) Character.getNumericValue(c);
+                        loadedPresets.set(count);
+                    }
                     count++;
                 }
             }
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
+        values = Arrays.copyOf(loaded, count);
+        presets = loadedPresets;
+        validity = new BitSet(count);
+        cellCount = count;
     }
 
 }
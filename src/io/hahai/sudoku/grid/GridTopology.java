@@ -0,0 +1,136 @@
+package io.hahai.sudoku.grid;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Row, column, block and peer index tables for one grid dimension. Tables are built once per dimension and
+ * shared by every grid of that size, so the arrays handed out must be treated as read only.
+ */
+public final class GridTopology {
+
+    private static final ConcurrentMap<Integer, GridTopology> TOPOLOGIES = new ConcurrentHashMap<>();
+
+    private final int dimension;
+    private final int blockDimension;
+    private final int size;
+    private final int[] rowOf;
+    private final int[] columnOf;
+    private final int[] blockOf;
+    private final int[][] rows;
+    private final int[][] columns;
+    private final int[][] blocks;
+    private final int[][] units;
+    private final int[][] peers;
+
+    private GridTopology(int dimension) {
+        this.dimension = dimension;
+        this.blockDimension = (int) Math.sqrt(dimension);
+        this.size = dimension * dimension;
+        rowOf = new int[size];
+        columnOf = new int[size];
+        blockOf = new int[size];
+        rows = new int[dimension][dimension];
+        columns = new int[dimension][dimension];
+        blocks = new int[dimension][dimension];
+        int[] filledInBlock = new int[dimension];
+        for (int cell = 0; cell < size; cell++) {
+            int row = cell / dimension;
+            int column = cell % dimension;
+            int block = (row / blockDimension) * blockDimension + column / blockDimension;
+            rowOf[cell] = row;
+            columnOf[cell] = column;
+            blockOf[cell] = block;
+            rows[row][column] = cell;
+            columns[column][row] = cell;
+            blocks[block][filledInBlock[block]++] = cell;
+        }
+        units = new int[3 * dimension][];
+        for (int unit = 0; unit < dimension; unit++) {
+            units[unit] = rows[unit];
+            units[dimension + unit] = columns[unit];
+            units[2 * dimension + unit] = blocks[unit];
+        }
+        peers = new int[size][];
+        for (int cell = 0; cell < size; cell++) {
+            peers[cell] = peersOf(cell);
+        }
+    }
+
+    public static GridTopology forDimension(int dimension) throws IllegalArgumentException {
+        int blockDimension = (int) Math.sqrt(dimension);
+        if (dimension < 1 || blockDimension * blockDimension != dimension) {
+            throw new IllegalArgumentException("No sudoku topology for dimension: " + dimension);
+        }
+        return TOPOLOGIES.computeIfAbsent(dimension, GridTopology::new);
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public int blockDimension() {
+        return blockDimension;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int rowOf(int cellIndex) {
+        return rowOf[cellIndex];
+    }
+
+    public int columnOf(int cellIndex) {
+        return columnOf[cellIndex];
+    }
+
+    public int blockOf(int cellIndex) {
+        return blockOf[cellIndex];
+    }
+
+    public int[] row(int row) {
+        return rows[row];
+    }
+
+    public int[] column(int column) {
+        return columns[column];
+    }
+
+    public int[] block(int block) {
+        return blocks[block];
+    }
+
+    /**
+     * Every row, then every column, then every block.
+     */
+    public int[][] units() {
+        return units;
+    }
+
+    public int[] peers(int cellIndex) {
+        return peers[cellIndex];
+    }
+
+    private int[] peersOf(int cell) {
+        int[] reply = new int[3 * dimension - 2 * blockDimension - 1];
+        int count = 0;
+        for (int other : rows[rowOf[cell]]) {
+            if (other != cell) {
+                reply[count++] = other;
+            }
+        }
+        for (int other : columns[columnOf[cell]]) {
+            if (other != cell) {
+                reply[count++] = other;
+            }
+        }
+        for (int other : blocks[blockOf[cell]]) {
+            if (rowOf[other] != rowOf[cell] && columnOf[other] != columnOf[cell]) {
+                reply[count++] = other;
+            }
+        }
+        return reply;
+    }
+
+}
@@ -0,0 +1,95 @@
+package io.hahai.sudoku.grid;
+
+import java.util.Arrays;
+
+/**
+ * The moves played on a {@link Grid}, each packed into one long as its cell, the value it replaced, whether that
+ * value was a preset and the value played. Moves before the position can be undone and those after it redone;
+ * recording a move drops whatever could have been redone. At most {@link #LIMIT} moves are kept: once full, the
+ * older half is dropped, and positions keep counting from the first move ever recorded so marks stay valid.
+ */
+final class MoveJournal {
+
+    static final int LIMIT = 4096;
+
+    private static final int VALUE_BITS = 8;
+    private static final int VALUE_MASK = (1 << VALUE_BITS) - 1;
+    private static final long PRESET_BIT = 1L << (2 * VALUE_BITS);
+    private static final int CELL_SHIFT = 32;
+
+    private long[] moves = new long[16];
+    private int size;
+    private int position;
+    private int dropped;
+
+    void record(int cellIndex, int previous, boolean wasPreset, int played) {
+        if (position == LIMIT) {
+            System.arraycopy(moves, LIMIT / 2, moves, 0, LIMIT / 2);
+            position -= LIMIT / 2;
+            dropped += LIMIT / 2;
+        } else if (position == moves.length) {
+            moves = Arrays.copyOf(moves, Math.min(moves.length * 2, LIMIT));
+        }
+        moves[position++] = (long) cellIndex << CELL_SHIFT | (wasPreset ? PRESET_BIT : 0) | previous << VALUE_BITS | played;
+        size = position;
+    }
+
+    boolean canUndo() {
+        return position > 0;
+    }
+
+    boolean canRedo() {
+        return position < size;
+    }
+
+    /**
+     * @return the move to undo, the position moving back over it
+     */
+    long undo() {
+        return moves[--position];
+    }
+
+    /**
+     * @return the move to redo, the position moving forward over it
+     */
+    long redo() {
+        return moves[position++];
+    }
+
+    /**
+     * @return the number of moves recorded and not undone, counting those dropped
+     */
+    int position() {
+        return dropped + position;
+    }
+
+    /**
+     * @return the earliest position still reachable by undoing
+     */
+    int oldest() {
+        return dropped;
+    }
+
+    void clear() {
+        size = 0;
+        position = 0;
+        dropped = 0;
+    }
+
+    static int cellOf(long move) {
+        return (int) (move >>> CELL_SHIFT);
+    }
+
+    static int previousOf(long move) {
+        return (int) (move >>> VALUE_BITS) & VALUE_MASK;
+    }
+
+    static boolean wasPreset(long move) {
+        return (move & PRESET_BIT) != 0;
+    }
+
+    static int playedOf(long move) {
+        return (int) move & VALUE_MASK;
+    }
+
+}
@@ -0,0 +1,56 @@
+package io.hahai.sudoku.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts latencies into power of two buckets of microseconds, from 1 up to about 16 seconds with one more for
+ * anything longer. Every bucket is a {@link LongAdder}, so recording from many threads neither locks nor
+ * contends on one counter.
+ */
+public final class LatencyHistogram {
+
+    static final int BUCKETS = 26;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalMicros = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        int bucket = micros <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(micros - 1);
+        buckets[Math.min(bucket, BUCKETS - 1)].increment();
+        totalMicros.add(micros);
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public long totalMicros() {
+        return totalMicros.sum();
+    }
+
+    /**
+     * @return the latencies recorded of at most {@code 2^bucket} microseconds, or of any length for the last
+     * bucket, as a fresh array
+     */
+    long[] cumulativeCounts() {
+        long[] counts = new long[BUCKETS];
+        long running = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            running += buckets[i].sum();
+            counts[i] = running;
+        }
+        return counts;
+    }
+
+}
@@ -0,0 +1,86 @@
+package io.hahai.sudoku.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Named counters, gauges and latency histograms, written out as plain text one value per line. Names may carry
+ * labels in braces, as in {@code sudoku_solve_micros{solver="backtracking"}}; asking for a name again returns
+ * the same metric. Safe for use from many threads.
+ */
+public final class MetricsRegistry {
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, SolverMetrics> solvers = new ConcurrentHashMap<>();
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(checkName(name), key -> new LongAdder());
+    }
+
+    /**
+     * Reports the supplier's value under {@code name}, replacing any gauge already there.
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(checkName(name), value);
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(checkName(name), key -> new LatencyHistogram());
+    }
+
+    public SolverMetrics solver(String solver) {
+        return solvers.computeIfAbsent(solver, key -> new SolverMetrics(this, key));
+    }
+
+    /**
+     * Writes every metric sorted by name. A histogram named {@code h} becomes cumulative {@code h_bucket} lines
+     * labelled with their upper bound in microseconds, then {@code h_count} and {@code h_sum}.
+     */
+    public void writeTo(Writer out) throws IOException {
+        for (Map.Entry<String, LongAdder> counter : new TreeMap<>(counters).entrySet()) {
+            writeLine(out, counter.getKey(), counter.getValue().sum());
+        }
+        for (Map.Entry<String, LongSupplier> gauge : new TreeMap<>(gauges).entrySet()) {
+            writeLine(out, gauge.getKey(), gauge.getValue().getAsLong());
+        }
+        for (Map.Entry<String, LatencyHistogram> histogram : new TreeMap<>(histograms).entrySet()) {
+            String name = histogram.getKey();
+            int brace = name.indexOf('{');
+            String base = brace < 0 ? name : name.substring(0, brace);
+            String labels = brace < 0 ? "" : name.substring(brace + 1, name.length() - 1);
+            String separator = labels.isEmpty() ? "" : ",";
+            long[] counts = histogram.getValue().cumulativeCounts();
+            for (int i = 0; i < counts.length; i++) {
+                String bound = i == counts.length - 1 ? "+Inf" : Long.toString(1L << i);
+                writeLine(out, base + "_bucket{" + labels + separator + "le=\"" + bound + "\"}", counts[i]);
+            }
+            String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+            writeLine(out, base + "_count" + suffix, counts[counts.length - 1]);
+            writeLine(out, base + "_sum" + suffix, histogram.getValue().totalMicros());
+        }
+        out.flush();
+    }
+
+    private static void writeLine(Writer out, String name, long value) throws IOException {
+        out.write(name);
+        out.write(' ');
+        out.write(Long.toString(value));
+        out.write('\n');
+    }
+
+    private static String checkName(String name) {
+        if (name.isEmpty() || name.indexOf(' ') >= 0 || name.indexOf('\n') >= 0
+                || (name.indexOf('{') >= 0) != name.endsWith("}")) {
+            throw new IllegalArgumentException("Not a metric name: " + name);
+        }
+        return name;
+    }
+
+}
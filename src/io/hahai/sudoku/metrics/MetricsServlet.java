@@ -0,0 +1,31 @@
+package io.hahai.sudoku.metrics;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+
+/**
+ * Serves a {@link MetricsRegistry} as plain text.
+ */
+public final class MetricsServlet extends HttpServlet {
+
+    private final MetricsRegistry metrics;
+
+    public MetricsServlet(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setStatus(SC_OK);
+        resp.setContentType("text/plain; charset=utf-8");
+        PrintWriter writer = resp.getWriter();
+        metrics.writeTo(writer);
+        writer.close();
+    }
+
+}
@@ -0,0 +1,57 @@
+package io.hahai.sudoku.metrics;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+
+/**
+ * Records how long each request to one endpoint takes, from arrival until its response is complete. Requests
+ * that go async are timed until the async context completes, so deadlines and slow bodies are counted in.
+ */
+public final class RequestTimingFilter implements Filter {
+
+    private final LatencyHistogram latency;
+
+    public RequestTimingFilter(LatencyHistogram latency) {
+        this.latency = latency;
+    }
+
+    @Override public void init(FilterConfig filterConfig) {
+    }
+
+    @Override public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override public void onComplete(AsyncEvent event) {
+                        latency.record(System.nanoTime() - start);
+                    }
+
+                    @Override public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override public void onError(AsyncEvent event) {
+                    }
+
+                    @Override public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                latency.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    @Override public void destroy() {
+    }
+
+}
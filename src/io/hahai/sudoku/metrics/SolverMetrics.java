@@ -0,0 +1,28 @@
+package io.hahai.sudoku.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What one solver has cost: the time of each solve, the search nodes it visited and the times a propagation
+ * strategy made progress, all labelled with the solver's name.
+ */
+public final class SolverMetrics {
+
+    private final LatencyHistogram time;
+    private final LongAdder nodes;
+    private final LongAdder propagations;
+
+    SolverMetrics(MetricsRegistry registry, String solver) {
+        String labels = "{solver=\"" + solver + "\"}";
+        this.time = registry.histogram("sudoku_solve_micros" + labels);
+        this.nodes = registry.counter("sudoku_solver_nodes_total" + labels);
+        this.propagations = registry.counter("sudoku_solver_propagations_total" + labels);
+    }
+
+    public void record(long nanos, long nodeCount, long propagationCount) {
+        time.record(nanos);
+        nodes.add(nodeCount);
+        propagations.add(propagationCount);
+    }
+
+}
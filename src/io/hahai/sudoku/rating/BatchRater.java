@@ -0,0 +1,153 @@
+package io.hahai.sudoku.rating;
+
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Rates puzzles on a fixed pool of workers, each keeping its own {@link DifficultyRater} for the life of the
+ * pool.
+ */
+public final class BatchRater implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 1024;
+    static final String INVALID = "INVALID";
+
+    private final GridTopology topology;
+    private final ExecutorService executor;
+    private final BlockingQueue<DifficultyRater> idleRaters;
+
+    public BatchRater(GridTopology topology, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Workers must be positive");
+        }
+        this.topology = topology;
+        this.executor = Executors.newFixedThreadPool(workers);
+        this.idleRaters = new ArrayBlockingQueue<>(workers);
+        for (int worker = 0; worker < workers; worker++) {
+            idleRaters.add(new DifficultyRater(topology));
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException when any of the puzzles cannot be rated
+     */
+    public List<Rating> rate(List<int[]> puzzles) throws IOException {
+        List<Future<Rating>> futures = new ArrayList<>(puzzles.size());
+        for (int[] puzzle : puzzles) {
+            futures.add(executor.submit(() -> rateOne(puzzle)));
+        }
+        List<Rating> reply = new ArrayList<>(puzzles.size());
+        for (Future<Rating> future : futures) {
+            reply.add(await(future));
+        }
+        return reply;
+    }
+
+    /**
+     * Reads one-line puzzles ({@code .} or {@code 0} for blanks) and writes each back followed by its score and
+     * tier, or by {@code INVALID} when it is not a puzzle of this dimension or has no solution.
+     *
+     * @return the number of puzzles rated
+     */
+    public long rate(Reader in, Writer out) throws IOException {
+        BufferedReader lines = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        List<Future<String>> futures = new ArrayList<>(BATCH_SIZE);
+        long rated = 0;
+        String line;
+        do {
+            line = lines.readLine();
+            if (line != null && !line.trim().isEmpty()) {
+                batch.add(line.trim());
+            }
+            if (batch.size() == BATCH_SIZE || (line == null && !batch.isEmpty())) {
+                for (String puzzle : batch) {
+                    futures.add(executor.submit(() -> describe(puzzle)));
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    String description = await(futures.get(i));
+                    out.write(batch.get(i));
+                    out.write(' ');
+                    out.write(description);
+                    out.write('\n');
+                    if (!INVALID.equals(description)) {
+                        rated++;
+                    }
+                }
+                batch.clear();
+                futures.clear();
+            }
+        } while (line != null);
+        out.flush();
+        return rated;
+    }
+
+    @Override public void close() {
+        executor.shutdown();
+    }
+
+    private String describe(String line) throws InterruptedException {
+        int[] givens = parse(line);
+        if (givens == null) {
+            return INVALID;
+        }
+        try {
+            return rateOne(givens).toString();
+        } catch (IllegalArgumentException e) {
+            return INVALID;
+        }
+    }
+
+    private int[] parse(String line) {
+        if (line.length() != topology.size()) {
+            return null;
+        }
+        int[] givens = new int[line.length()];
+        for (int i = 0; i < givens.length; i++) {
+            char c = line.charAt(i);
+            if (c != '.' && c != '0') {
+                givens[i] = c - '0';
+                if (givens[i] < 1 || givens[i] > topology.dimension()) {
+                    return null;
+                }
+            }
+        }
+        return givens;
+    }
+
+    private Rating rateOne(int[] givens) throws InterruptedException {
+        DifficultyRater rater = idleRaters.take();
+        try {
+            return rater.rate(givens);
+        } finally {
+            idleRaters.add(rater);
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rating", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package io.hahai.sudoku.rating;
+
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.grid.GridTopology;
+import io.hahai.sudoku.solver.CandidateState;
+import io.hahai.sudoku.solver.ConstraintPropagator;
+import io.hahai.sudoku.solver.PropagationStrategy;
+
+import java.util.Arrays;
+
+/**
+ * Rates a puzzle by solving it with logical strategies only, always falling back to the simplest
+ * {@link Technique} that makes progress, and recording which ones it needed. Instances reuse their state
+ * between puzzles and are not thread safe.
+ */
+public final class DifficultyRater {
+
+    private final CandidateState state;
+    private final ConstraintPropagator propagator;
+    private final int[] uses;
+
+    public DifficultyRater(GridTopology topology) {
+        Technique[] techniques = Technique.values();
+        PropagationStrategy[] strategies = new PropagationStrategy[techniques.length];
+        for (int i = 0; i < techniques.length; i++) {
+            strategies[i] = techniques[i].newStrategy();
+        }
+        this.state = new CandidateState(topology);
+        this.propagator = new ConstraintPropagator(strategies);
+        this.uses = new int[techniques.length];
+    }
+
+    public GridTopology topology() {
+        return state.topology();
+    }
+
+    public Rating rate(Grid grid) throws IllegalArgumentException {
+        if (grid.topology() != state.topology()) {
+            throw new IllegalArgumentException("Grid of dimension " + grid.dimension() + " cannot be rated here");
+        }
+        return rate(state.load(grid));
+    }
+
+    /**
+     * @param givens the puzzle row by row, 0 for an empty cell
+     * @throws IllegalArgumentException when the givens clash or logic shows the puzzle has no solution
+     */
+    public Rating rate(int[] givens) throws IllegalArgumentException {
+        if (givens.length != state.topology().size()) {
+            throw new IllegalArgumentException(givens.length + " givens do not fill a grid of " + state.topology().size() + " cells");
+        }
+        return rate(state.load(givens));
+    }
+
+    private Rating rate(boolean loaded) {
+        Arrays.fill(uses, 0);
+        if (!loaded || !propagator.propagate(state, uses)) {
+            throw new IllegalArgumentException("Puzzle has no solution");
+        }
+        return new Rating(uses, state.emptyCells());
+    }
+
+}
@@ -0,0 +1,76 @@
+package io.hahai.sudoku.rating;
+
+import java.util.Arrays;
+
+/**
+ * What a {@link DifficultyRater} found: how many values each {@link Technique} placed and candidates it
+ * eliminated, and how many cells were still empty when logic ran out.
+ */
+public final class Rating {
+
+    /**
+     * Added once when logic alone cannot finish, on top of one point per cell it left empty.
+     */
+    static final int GUESSING_PENALTY = 100;
+
+    private final int[] uses;
+    private final int unsolvedCells;
+
+    Rating(int[] uses, int unsolvedCells) {
+        this.uses = uses.clone();
+        this.unsolvedCells = unsolvedCells;
+    }
+
+    public int uses(Technique technique) {
+        return uses[technique.ordinal()];
+    }
+
+    public int unsolvedCells() {
+        return unsolvedCells;
+    }
+
+    public boolean solvedByLogic() {
+        return unsolvedCells == 0;
+    }
+
+    public int score() {
+        int score = solvedByLogic() ? 0 : GUESSING_PENALTY + unsolvedCells;
+        for (Technique technique : Technique.values()) {
+            score += technique.weight() * uses(technique);
+        }
+        return score;
+    }
+
+    public Tier tier() {
+        if (!solvedByLogic()) {
+            return Tier.EXPERT;
+        }
+        Tier tier = Tier.EASY;
+        for (Technique technique : Technique.values()) {
+            if (uses(technique) > 0 && technique.tier().compareTo(tier) > 0) {
+                tier = technique.tier();
+            }
+        }
+        return tier;
+    }
+
+    @Override public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Rating)) {
+            return false;
+        }
+        Rating other = (Rating) o;
+        return unsolvedCells == other.unsolvedCells && Arrays.equals(uses, other.uses);
+    }
+
+    @Override public int hashCode() {
+        return 31 * Arrays.hashCode(uses) + unsolvedCells;
+    }
+
+    @Override public String toString() {
+        return score() + " " + tier();
+    }
+
+}
@@ -0,0 +1,47 @@
+package io.hahai.sudoku.rating;
+
+import io.hahai.sudoku.solver.BoxLineReductionStrategy;
+import io.hahai.sudoku.solver.HiddenPairStrategy;
+import io.hahai.sudoku.solver.HiddenSingleStrategy;
+import io.hahai.sudoku.solver.NakedPairStrategy;
+import io.hahai.sudoku.solver.NakedSingleStrategy;
+import io.hahai.sudoku.solver.PointingPairStrategy;
+import io.hahai.sudoku.solver.PropagationStrategy;
+
+import java.util.function.Supplier;
+
+/**
+ * The logical strategies a {@link DifficultyRater} may use, in the order it tries them, each with the score
+ * added for every value it places or candidate it eliminates and the lowest {@link Tier} a puzzle needing it
+ * can have.
+ */
+public enum Technique {
+    NAKED_SINGLE(1, Tier.EASY, NakedSingleStrategy::new),
+    HIDDEN_SINGLE(2, Tier.EASY, HiddenSingleStrategy::new),
+    POINTING_PAIR(8, Tier.MEDIUM, PointingPairStrategy::new),
+    BOX_LINE_REDUCTION(10, Tier.MEDIUM, BoxLineReductionStrategy::new),
+    NAKED_PAIR(20, Tier.HARD, NakedPairStrategy::new),
+    HIDDEN_PAIR(25, Tier.HARD, HiddenPairStrategy::new);
+
+    private final int weight;
+    private final Tier tier;
+    private final Supplier<PropagationStrategy> strategy;
+
+    Technique(int weight, Tier tier, Supplier<PropagationStrategy> strategy) {
+        this.weight = weight;
+        this.tier = tier;
+        this.strategy = strategy;
+    }
+
+    public int weight() {
+        return weight;
+    }
+
+    public Tier tier() {
+        return tier;
+    }
+
+    PropagationStrategy newStrategy() {
+        return strategy.get();
+    }
+}
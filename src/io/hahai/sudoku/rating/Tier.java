@@ -0,0 +1,8 @@
+package io.hahai.sudoku.rating;
+
+/**
+ * Difficulty bands, from puzzles that need only singles to those logic alone cannot finish.
+ */
+public enum Tier {
+    EASY, MEDIUM, HARD, EXPERT
+}
@@ -0,0 +1,489 @@
+package io.hahai.sudoku.server;
+
+import io.hahai.sudoku.codec.GridCodec;
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps games on disk as an append-only log of creations, moves and removals, split into numbered segments,
+ * plus periodic snapshots of every live game.
+ * <p>
+ * A move only copies a small record into memory. One writer thread drains everything appended meanwhile in a
+ * single write and fsync, so a busy server commits many moves per sync. A crash loses at most the moves
+ * appended since the last sync; {@link #flush()} waits for it.
+ * <p>
+ * A snapshot first starts a new segment, then writes each game under its lock, so it holds every change logged
+ * in earlier segments. Those segments are deleted once the snapshot is safely renamed into place, and
+ * {@link #recover(GameRegistry)} reads the newest snapshot and replays only the segments after it. Replaying a
+ * move just sets a cell again, so changes that made it into both the snapshot and the log come out the same.
+ */
+public final class FileGameJournal implements GameJournal, AutoCloseable {
+
+    public static final long DEFAULT_SNAPSHOT_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final String SEGMENT_PREFIX = "moves-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final int SNAPSHOT_MAGIC = 0x5344_4B53;
+    private static final int SNAPSHOT_FORMAT = 1;
+
+    private static final byte CREATED = 1;
+    private static final byte PLAYED = 2;
+    private static final byte REMOVED = 3;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int ID_BYTES = 16;
+
+    private final Path directory;
+    private final long snapshotIntervalMillis;
+    private final Map<Integer, GridCodec> codecs = new TreeMap<>();
+    private final Object lock = new Object();
+    private final CRC32 checksum = new CRC32();
+    private final Thread writer;
+    private ScheduledExecutorService snapshots;
+
+    private FileChannel channel;
+    private long segment;
+    private ByteBuffer pending = ByteBuffer.allocateDirect(1 << 16);
+    private ByteBuffer spare = ByteBuffer.allocateDirect(1 << 16);
+    private long appended;
+    private long committed;
+    private boolean rotationRequested;
+    private boolean closed;
+    private IOException failure;
+
+    private FileGameJournal(Path directory, long snapshotIntervalMillis, long segment) throws IOException {
+        this.directory = directory;
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+        this.segment = segment;
+        this.channel = openSegment(segment);
+        this.writer = new Thread(this::writeLoop, "sudoku-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public static FileGameJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SNAPSHOT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Opens the journal in {@code directory}, creating it if need be. Appends go to a new segment after any
+     * already there, so a torn record left by a crash is never written after.
+     */
+    public static FileGameJournal open(Path directory, long snapshotIntervalMillis) throws IOException {
+        if (snapshotIntervalMillis < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be positive");
+        }
+        Files.createDirectories(directory);
+        return new FileGameJournal(directory, snapshotIntervalMillis, newestNumber(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX) + 1);
+    }
+
+    /**
+     * Rebuilds the games from the newest snapshot and the segments written after it, puts them into the
+     * registry and then snapshots the registry every interval.
+     *
+     * @return the number of games recovered
+     */
+    public int recover(GameRegistry games) throws IOException {
+        Map<UUID, Grid> grids = new LinkedHashMap<>();
+        long first = newestNumber(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        if (first > 0) {
+            readSnapshot(directory.resolve(SNAPSHOT_PREFIX + first + SNAPSHOT_SUFFIX), grids);
+        }
+        for (long number = Math.max(first, 1); number < segment; number++) {
+            Path path = directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+            if (Files.exists(path)) {
+                replay(ByteBuffer.wrap(Files.readAllBytes(path)), grids);
+            }
+        }
+        grids.forEach(games::restore);
+        synchronized (lock) {
+            if (snapshots == null && !closed) {
+                snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "sudoku-journal-snapshots");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                snapshots.scheduleWithFixedDelay(() -> {
+                    try {
+                        snapshot(games);
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("Game snapshot failed: " + e);
+                    }
+                }, snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return grids.size();
+    }
+
+    @Override public void created(UUID id, Grid grid) {
+        GridCodec codec = codecFor(grid.topology());
+        synchronized (lock) {
+            int start = startRecord(CREATED, id, codec.encodedSize());
+            codec.encode(grid, pending);
+            endRecord(start);
+        }
+    }
+
+    @Override public void played(UUID id, int index, int value) {
+        synchronized (lock) {
+            int start = startRecord(PLAYED, id, 3);
+            pending.putShort((short) index);
+            pending.put((byte) value);
+            endRecord(start);
+        }
+    }
+
+    @Override public void removed(UUID id) {
+        synchronized (lock) {
+            endRecord(startRecord(REMOVED, id, 0));
+        }
+    }
+
+    /**
+     * Waits until everything appended so far is synced to disk.
+     */
+    public void flush() throws IOException {
+        synchronized (lock) {
+            long target = appended;
+            while (committed < target && failure == null) {
+                awaitWriter();
+            }
+            checkFailure();
+        }
+    }
+
+    /**
+     * Writes every game in the registry to a new snapshot and deletes the log segments it makes redundant.
+     */
+    public void snapshot(GameRegistry games) throws IOException {
+        long first;
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Game journal is closed");
+            }
+            checkFailure();
+            long before = segment;
+            rotationRequested = true;
+            lock.notifyAll();
+            while (segment == before && failure == null) {
+                awaitWriter();
+            }
+            checkFailure();
+            first = segment;
+        }
+        Path written = directory.resolve(SNAPSHOT_PREFIX + first + ".tmp");
+        try (FileChannel out = FileChannel.open(written, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            CRC32 crc = new CRC32();
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_FORMAT).putLong(first);
+            for (Game game : games.games()) {
+                while (!game.withGrid(grid -> writeGame(game.uuid(), grid, buffer))) {
+                    drain(buffer, out, crc);
+                }
+            }
+            drain(buffer, out, crc);
+            buffer.putLong(crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(written, directory.resolve(SNAPSHOT_PREFIX + first + SNAPSHOT_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long number = Math.max(numberOf(name, SEGMENT_PREFIX, SEGMENT_SUFFIX), numberOf(name, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX));
+                if (number > 0 && number < first) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops snapshotting and closes the log once everything appended is synced.
+     */
+    @Override public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+            if (snapshots != null) {
+                snapshots.shutdown();
+            }
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        synchronized (lock) {
+            checkFailure();
+        }
+    }
+
+    private int startRecord(byte type, UUID id, int payloadBytes) {
+        if (closed) {
+            throw new IllegalStateException("Game journal is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Game journal could not be written", failure);
+        }
+        int length = 1 + ID_BYTES + payloadBytes;
+        if (pending.remaining() < RECORD_HEADER_BYTES + length) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(pending.capacity() * 2, pending.position() + RECORD_HEADER_BYTES + length));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        int start = pending.position();
+        pending.putInt(length).putInt(0);
+        pending.put(type);
+        putId(pending, id);
+        return start;
+    }
+
+    private void endRecord(int start) {
+        int end = pending.position();
+        pending.limit(end).position(start + RECORD_HEADER_BYTES);
+        checksum.reset();
+        checksum.update(pending);
+        pending.limit(pending.capacity());
+        pending.putInt(start + 4, (int) checksum.getValue());
+        appended++;
+        lock.notifyAll();
+    }
+
+    private void writeLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long through;
+            boolean rotate;
+            synchronized (lock) {
+                while (pending.position() == 0 && !rotationRequested && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.position() == 0 && !rotationRequested) {
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                spare = null;
+                through = appended;
+                rotate = rotationRequested;
+                rotationRequested = false;
+            }
+            IOException error = null;
+            FileChannel next = null;
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+                if (rotate) {
+                    next = openSegment(segment + 1);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+            batch.clear();
+            synchronized (lock) {
+                spare = batch;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    committed = through;
+                    if (next != null) {
+                        FileChannel previous = channel;
+                        channel = next;
+                        segment++;
+                        closeQuietly(previous);
+                    }
+                }
+                lock.notifyAll();
+                if (failure != null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void awaitWriter() throws IOException {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the game journal", e);
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Game journal could not be written", failure);
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private GridCodec codecFor(GridTopology topology) {
+        synchronized (codecs) {
+            return codecs.computeIfAbsent(topology.dimension(), dimension -> new GridCodec(topology));
+        }
+    }
+
+    /**
+     * Applies records until the end of the segment or the first torn or corrupt one, which can only be the
+     * last record written before a crash.
+     */
+    private void replay(ByteBuffer log, Map<UUID, Grid> grids) {
+        CRC32 crc = new CRC32();
+        while (log.remaining() >= RECORD_HEADER_BYTES) {
+            int length = log.getInt();
+            int expected = log.getInt();
+            if (length < 1 + ID_BYTES || length > log.remaining()) {
+                return;
+            }
+            ByteBuffer record = log.slice();
+            record.limit(length);
+            crc.reset();
+            crc.update(record);
+            if ((int) crc.getValue() != expected) {
+                return;
+            }
+            record.rewind();
+            byte type = record.get();
+            UUID id = new UUID(record.getLong(), record.getLong());
+            if (type == CREATED) {
+                grids.put(id, codecFor(GridTopology.forDimension(GridCodec.dimensionOf(record))).decode(record));
+            } else if (type == PLAYED) {
+                Grid grid = grids.get(id);
+                int index = record.getShort();
+                int value = record.get();
+                if (grid != null) {
+                    grid.play(index, value);
+                }
+            } else if (type == REMOVED) {
+                grids.remove(id);
+            }
+            log.position(log.position() + length);
+        }
+    }
+
+    private void readSnapshot(Path path, Map<UUID, Grid> grids) throws IOException {
+        ByteBuffer snapshot = ByteBuffer.wrap(Files.readAllBytes(path));
+        CRC32 crc = new CRC32();
+        crc.update(snapshot.array(), 0, Math.max(0, snapshot.limit() - 8));
+        if (snapshot.limit() < 24 || snapshot.getLong(snapshot.limit() - 8) != crc.getValue()
+                || snapshot.getInt() != SNAPSHOT_MAGIC || snapshot.getInt() != SNAPSHOT_FORMAT) {
+            throw new IOException("Snapshot " + path + " is damaged");
+        }
+        snapshot.getLong();
+        snapshot.limit(snapshot.limit() - 8);
+        while (snapshot.hasRemaining()) {
+            UUID id = new UUID(snapshot.getLong(), snapshot.getLong());
+            grids.put(id, codecFor(GridTopology.forDimension(GridCodec.dimensionOf(snapshot))).decode(snapshot));
+        }
+    }
+
+    /**
+     * @return false, writing nothing, when the buffer has no room for the game
+     */
+    private boolean writeGame(UUID id, Grid grid, ByteBuffer buffer) {
+        GridCodec codec = codecFor(grid.topology());
+        if (buffer.remaining() < ID_BYTES + codec.encodedSize() + 8) {
+            return false;
+        }
+        putId(buffer, id);
+        codec.encode(grid, buffer);
+        return true;
+    }
+
+    private static void putId(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+    }
+
+    /**
+     * Makes the snapshot's rename durable before the segments it replaces are deleted. Skipped where a
+     * directory cannot be opened, as on Windows.
+     */
+    private void syncDirectory() throws IOException {
+        FileChannel dir;
+        try {
+            dir = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (FileChannel opened = dir) {
+            opened.force(true);
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel out, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static long newestNumber(Path directory, String prefix, String suffix) throws IOException {
+        long newest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                newest = Math.max(newest, numberOf(file.getFileName().toString(), prefix, suffix));
+            }
+        }
+        return newest;
+    }
+
+    private static long numberOf(String name, String prefix, String suffix) {
+        if (!name.startsWith(prefix) || !name.endsWith(suffix)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package io.hahai.sudoku.server;
+
+import io.hahai.sudoku.grid.Cell;
+import io.hahai.sudoku.grid.Grid;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * One player's grid, as held by a {@link GameRegistry}. Everything done to the grid goes through
+ * {@link #withGrid(Function)}, so moves on one game run one at a time while different games never contend.
+ */
+public final class Game {
+
+    private final UUID uuid;
+    private final String id;
+    private final Grid grid;
+    private final GameJournal journal;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile long lastAccess;
+    private volatile long queuedAt;
+
+    Game(UUID uuid, Grid grid, GameJournal journal, long now) {
+        this.uuid = uuid;
+        this.id = uuid.toString();
+        this.grid = grid;
+        this.grid.keepMoves(true);
+        this.journal = journal;
+        this.lastAccess = now;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Runs the action with sole use of the grid. The grid must not escape the action.
+     */
+    public <T> T withGrid(Function<Grid, T> action) {
+        lock.lock();
+        try {
+            return action.apply(grid);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Plays the move and records it in the registry's journal, then runs the action with the cells the move
+     * changed, all with sole use of the grid. Should the journal refuse the move, it is undone before the
+     * journal's exception is passed on, so the grid never holds a move that would be lost on restart. The moves
+     * kept for that are forgotten once the grid is complete.
+     */
+    public <T> T play(int index, int value, BiFunction<Grid, List<Cell>, T> action) {
+        lock.lock();
+        try {
+            List<Cell> changed = grid.play(index, value);
+            try {
+                journal.played(uuid, index, value);
+            } catch (RuntimeException e) {
+                grid.undo();
+                throw e;
+            }
+            if (grid.isGridCompleteAndCorrect()) {
+                grid.forgetMoves();
+            }
+            return action.apply(grid, changed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    UUID uuid() {
+        return uuid;
+    }
+
+    long lastAccess() {
+        return lastAccess;
+    }
+
+    void touch(long now) {
+        lastAccess = now;
+    }
+
+    /**
+     * When the game last joined its registry's eviction queue.
+     */
+    long queuedAt() {
+        return queuedAt;
+    }
+
+    void queued(long now) {
+        queuedAt = now;
+    }
+
+}
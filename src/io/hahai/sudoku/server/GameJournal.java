@@ -0,0 +1,31 @@
+package io.hahai.sudoku.server;
+
+import io.hahai.sudoku.grid.Grid;
+
+import java.util.UUID;
+
+/**
+ * Told of every change to the games in a {@link GameRegistry}, so they can be rebuilt after a restart. Calls for
+ * one game arrive in the order the changes were made, and should return quickly since moves wait on them. A move
+ * the journal throws on is taken back.
+ */
+public interface GameJournal {
+
+    GameJournal NONE = new GameJournal() {
+        @Override public void created(UUID id, Grid grid) {
+        }
+
+        @Override public void played(UUID id, int index, int value) {
+        }
+
+        @Override public void removed(UUID id) {
+        }
+    };
+
+    void created(UUID id, Grid grid);
+
+    void played(UUID id, int index, int value);
+
+    void removed(UUID id);
+
+}
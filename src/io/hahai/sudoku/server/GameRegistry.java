@@ -0,0 +1,221 @@
+package io.hahai.sudoku.server;
+
+import io.hahai.sudoku.grid.Grid;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The games being played on a server, keyed by an unguessable id. Games not looked up for longer than the
+ * idle time are evicted, swept at most once per quarter of the idle time as games are used. The registry
+ * also holds at most {@code maxGames}, each creation reserving its place before the game is added. At the limit
+ * a game is evicted the way a clock cache does it: games wait in a queue in the order they were added, and the
+ * first one not used since it joined the queue is evicted, those that were used going round again. That finds
+ * an idle or nearly least recently used game without scanning them all. Creations, moves and removals,
+ * evictions included, are reported to the registry's {@link GameJournal}.
+ */
+public final class GameRegistry {
+
+    public static final int DEFAULT_MAX_GAMES = 10_000;
+    public static final long DEFAULT_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    /**
+     * How often a creation at the limit looks again for a game to evict, when the only places taken are those
+     * reserved by creations still under way, before it gives up.
+     */
+    static final int CREATE_ATTEMPTS = 64;
+
+    private final Map<String, Game> games = new ConcurrentHashMap<>();
+    private final Queue<Game> evictionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Supplier<Grid> newGrid;
+    private final GameJournal journal;
+    private final int maxGames;
+    private final long idleMillis;
+    private final LongSupplier clock;
+    private final AtomicLong lastSweep;
+
+    public GameRegistry(Supplier<Grid> newGrid) {
+        this(newGrid, DEFAULT_MAX_GAMES, DEFAULT_IDLE_MILLIS);
+    }
+
+    public GameRegistry(Supplier<Grid> newGrid, int maxGames, long idleMillis) {
+        this(newGrid, maxGames, idleMillis, GameJournal.NONE);
+    }
+
+    public GameRegistry(Supplier<Grid> newGrid, int maxGames, long idleMillis, GameJournal journal) {
+        this(newGrid, maxGames, idleMillis, journal, System::currentTimeMillis);
+    }
+
+    GameRegistry(Supplier<Grid> newGrid, int maxGames, long idleMillis, GameJournal journal, LongSupplier clock) {
+        if (maxGames < 1 || idleMillis < 1) {
+            throw new IllegalArgumentException("Game limit and idle time must be positive");
+        }
+        this.newGrid = newGrid;
+        this.journal = journal;
+        this.maxGames = maxGames;
+        this.idleMillis = idleMillis;
+        this.clock = clock;
+        this.lastSweep = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * @return the game with this id, or null when there is none or it has been evicted
+     */
+    public Game find(String id) {
+        long now = clock.getAsLong();
+        sweepIfDue(now);
+        Game game = id == null ? null : games.get(id);
+        if (game != null) {
+            game.touch(now);
+        }
+        return game;
+    }
+
+    /**
+     * @throws IllegalStateException when the registry is full of games still being created, so none can be evicted
+     */
+    public Game create() throws IllegalStateException {
+        long now = clock.getAsLong();
+        sweepIfDue(now);
+        for (int attempts = 0; ; ) {
+            int reserved = count.get();
+            if (reserved < maxGames) {
+                if (count.compareAndSet(reserved, reserved + 1)) {
+                    break;
+                }
+            } else if (!evictOne(now)) {
+                if (++attempts == CREATE_ATTEMPTS) {
+                    throw new IllegalStateException("All " + maxGames + " games are still being created");
+                }
+                Thread.yield();
+            }
+        }
+        Grid grid = newGrid.get();
+        Game game = new Game(UUID.randomUUID(), grid, journal, now);
+        games.put(game.id(), game);
+        enqueue(game, now);
+        journal.created(game.uuid(), grid);
+        return game;
+    }
+
+    public boolean remove(String id) {
+        Game game = id == null ? null : games.remove(id);
+        if (game == null) {
+            return false;
+        }
+        count.decrementAndGet();
+        journal.removed(game.uuid());
+        return true;
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    /**
+     * @return the number of games evicted
+     */
+    public int evictIdle() {
+        return evictIdle(clock.getAsLong());
+    }
+
+    private int evictIdle(long now) {
+        lastSweep.set(now);
+        int evicted = 0;
+        for (Game game : games.values()) {
+            if (now - game.lastAccess() > idleMillis && games.remove(game.id(), game)) {
+                count.decrementAndGet();
+                journal.removed(game.uuid());
+                evicted++;
+            }
+        }
+        dropRemovedFromQueue();
+        return evicted;
+    }
+
+    private void sweepIfDue(long now) {
+        long last = lastSweep.get();
+        if (now - last > idleMillis / 4 && lastSweep.compareAndSet(last, now)) {
+            evictIdle(now);
+        }
+    }
+
+    /**
+     * Takes games off the front of the queue until one not used since it was queued, or idle, can be evicted,
+     * queueing the others again. After going once round all the games, the next one is evicted regardless.
+     *
+     * @return false when the queue ran dry, as it can while other threads are between reserving and queueing
+     */
+    private boolean evictOne(long now) {
+        for (int looked = 0; ; looked++) {
+            Game game = evictionOrder.poll();
+            if (game == null) {
+                return false;
+            }
+            queued.decrementAndGet();
+            if (games.get(game.id()) != game) {
+                continue;
+            }
+            boolean used = game.lastAccess() > game.queuedAt() && now - game.lastAccess() <= idleMillis;
+            if (used && looked < maxGames) {
+                enqueue(game, now);
+            } else if (games.remove(game.id(), game)) {
+                count.decrementAndGet();
+                journal.removed(game.uuid());
+                return true;
+            }
+        }
+    }
+
+    private void enqueue(Game game, long now) {
+        game.queued(now);
+        evictionOrder.add(game);
+        if (queued.incrementAndGet() > 2 * maxGames) {
+            dropRemovedFromQueue();
+        }
+    }
+
+    /**
+     * Games removed or swept while still queued are only dropped from the queue when they reach its front, or
+     * here, so that a registry that never fills up does not hold on to them.
+     */
+    private void dropRemovedFromQueue() {
+        int dropped = 0;
+        for (Iterator<Game> queue = evictionOrder.iterator(); queue.hasNext(); ) {
+            Game game = queue.next();
+            if (games.get(game.id()) != game) {
+                queue.remove();
+                dropped++;
+            }
+        }
+        queued.addAndGet(-dropped);
+    }
+
+    /**
+     * Puts back a game recovered from a journal, without reporting it to the journal again.
+     */
+    void restore(UUID id, Grid grid) {
+        long now = clock.getAsLong();
+        Game game = new Game(id, grid, journal, now);
+        if (games.put(game.id(), game) == null) {
+            count.incrementAndGet();
+        }
+        enqueue(game, now);
+    }
+
+    Iterable<Game> games() {
+        return games.values();
+    }
+
+}
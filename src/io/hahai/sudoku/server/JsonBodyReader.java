@@ -0,0 +1,143 @@
+package io.hahai.sudoku.server;
+
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.ParseException;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+import static javax.servlet.http.HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE;
+
+/**
+ * Collects a request body as it arrives, then hands it on as a JSON object and, unless the handler says it
+ * will, completes the async request.
+ * A body that is not a JSON object, or that the handler rejects with an {@link IllegalArgumentException}, is
+ * answered with 400. So is a field of the wrong type, which the handler meets as an
+ * {@link UnsupportedOperationException} or {@link NumberFormatException} when reading it. A body longer than
+ * {@link #MAX_BODY_BYTES}, whether declared so or found so while reading, is answered with 413 and not read on.
+ */
+final class JsonBodyReader implements ReadListener {
+
+    /**
+     * Room for a move or a 16x16 puzzle, with plenty to spare.
+     */
+    static final int MAX_BODY_BYTES = 8 << 10;
+
+    interface BodyHandler {
+        /**
+         * @return false when the handler has passed the request on and will complete it itself
+         */
+        boolean handle(JsonObject body) throws IOException;
+    }
+
+    private final ServletInputStream in;
+    private final AsyncContext async;
+    private final BodyHandler handler;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+    private final byte[] buffer = new byte[512];
+    private boolean refused;
+
+    private JsonBodyReader(ServletInputStream in, AsyncContext async, BodyHandler handler) {
+        this.in = in;
+        this.async = async;
+        this.handler = handler;
+    }
+
+    /**
+     * Reads the body of a request already put in async mode, refusing it at once when its declared length is
+     * too long.
+     */
+    static void read(HttpServletRequest req, AsyncContext async, BodyHandler handler) throws IOException {
+        if (req.getContentLengthLong() > MAX_BODY_BYTES) {
+            refuse(async);
+            return;
+        }
+        ServletInputStream in = req.getInputStream();
+        in.setReadListener(new JsonBodyReader(in, async, handler));
+    }
+
+    /**
+     * Reads a body in full for a request that cannot go async.
+     *
+     * @return the body, or null when it is longer than {@link #MAX_BODY_BYTES}
+     */
+    static byte[] readBlocking(HttpServletRequest req) throws IOException {
+        if (req.getContentLengthLong() > MAX_BODY_BYTES) {
+            return null;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+        byte[] buffer = new byte[512];
+        InputStream in = req.getInputStream();
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            if (body.size() + read > MAX_BODY_BYTES) {
+                return null;
+            }
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    @Override public void onDataAvailable() throws IOException {
+        while (!refused && in.isReady()) {
+            int read = in.read(buffer);
+            if (read < 0) {
+                return;
+            }
+            if (body.size() + read > MAX_BODY_BYTES) {
+                refused = true;
+                refuse(async);
+                return;
+            }
+            body.write(buffer, 0, read);
+        }
+    }
+
+    @Override public void onAllDataRead() throws IOException {
+        if (refused) {
+            return;
+        }
+        boolean complete = true;
+        try {
+            JsonObject json;
+            try {
+                json = JsonObject.readFrom(new String(body.toByteArray(), StandardCharsets.UTF_8));
+            } catch (ParseException | UnsupportedOperationException e) {
+                ((HttpServletResponse) async.getResponse()).sendError(SC_BAD_REQUEST, "Body is not a JSON object");
+                return;
+            }
+            try {
+                complete = handler.handle(json);
+            } catch (IllegalArgumentException | UnsupportedOperationException e) {
+                ((HttpServletResponse) async.getResponse()).sendError(SC_BAD_REQUEST, e.getMessage());
+            }
+        } finally {
+            if (complete) {
+                async.complete();
+            }
+        }
+    }
+
+    @Override public void onError(Throwable t) {
+        if (!refused) {
+            async.complete();
+        }
+    }
+
+    private static void refuse(AsyncContext async) throws IOException {
+        try {
+            ((HttpServletResponse) async.getResponse()).sendError(SC_REQUEST_ENTITY_TOO_LARGE,
+                    "Body is longer than " + MAX_BODY_BYTES + " bytes");
+        } finally {
+            async.complete();
+        }
+    }
+
+}
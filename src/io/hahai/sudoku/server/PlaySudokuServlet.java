@@ -3,34 +3,76 @@ package io.hahai.sudoku.server;
 import com.eclipsesource.json.JsonArray;
 import com.eclipsesource.json.JsonObject;
 import io.hahai.sudoku.grid.Cell;
-import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.metrics.MetricsRegistry;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
+import static javax.servlet.http.HttpServletResponse.SC_GONE;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.servlet.http.HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
 
+/**
+ * Serves each player their own game from a {@link GameRegistry}. The game is named by a {@code game} query
+ * parameter or JSON field, falling back to the {@value #GAME_COOKIE} cookie. Only a GET naming no game starts
+ * one, sending its id in that cookie; a request naming a game that is not live, because it was finished,
+ * evicted or never existed, is answered with 410 and its cookie cleared, and a move naming no game with 404.
+ * Moves, completed games and the games in play are reported to a {@link MetricsRegistry}.
+ */
 public final class PlaySudokuServlet extends HttpServlet {
 
-    private final Grid grid;
+    static final String GAME_COOKIE = "sudoku_game";
 
-    public PlaySudokuServlet(Grid grid) {
-        this.grid = grid;
+    private final GameRegistry games;
+    private final LongAdder moves;
+    private final LongAdder completions;
+
+    public PlaySudokuServlet(GameRegistry games) {
+        this(games, new MetricsRegistry());
+    }
+
+    public PlaySudokuServlet(GameRegistry games, MetricsRegistry metrics) {
+        this.games = games;
+        this.moves = metrics.counter("sudoku_moves_total");
+        this.completions = metrics.counter("sudoku_games_completed_total");
+        metrics.gauge("sudoku_games_active", games::size);
     }
 
     @Override protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        String requested = req.getParameter("game") != null ? req.getParameter("game") : cookieValue(req);
+        Game game;
+        if (requested == null) {
+            try {
+                game = games.create();
+            } catch (IllegalStateException e) {
+                resp.setHeader("Retry-After", "1");
+                resp.sendError(SC_SERVICE_UNAVAILABLE, e.getMessage());
+                return;
+            }
+            resp.addCookie(gameCookie(game.id(), -1));
+        } else if ((game = liveGame(requested, req, resp)) == null) {
+            return;
+        }
         final JsonArray reply = new JsonArray();
-        grid.accept(cell -> {
-            JsonObject jsonCell = new JsonObject();
-            jsonCell.set("val", cell.getValue());
-            jsonCell.set("state", cell.getState().name().toLowerCase());
-            reply.add(jsonCell);
+        game.withGrid(grid -> {
+            grid.accept(cell -> {
+                JsonObject jsonCell = new JsonObject();
+                jsonCell.set("val", cell.getValue());
+                jsonCell.set("state", cell.getState().name().toLowerCase());
+                reply.add(jsonCell);
+            });
+            return reply;
         });
         resp.setContentType("application/json");
         resp.setStatus(SC_OK);
@@ -39,20 +81,52 @@ public final class PlaySudokuServlet extends HttpServlet {
         writer.close();
     }
 
+    /**
+     * Reads the move without blocking when the container allows async requests, so a slow client does not hold
+     * a request thread while its body trickles in.
+     */
     @Override protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        InputStreamReader reader = new InputStreamReader(req.getInputStream());
-        JsonObject requestObject = JsonObject.readFrom(reader);
+        if (!req.isAsyncSupported()) {
+            byte[] body = JsonBodyReader.readBlocking(req);
+            if (body == null) {
+                resp.sendError(SC_REQUEST_ENTITY_TOO_LARGE, "Body is longer than " + JsonBodyReader.MAX_BODY_BYTES + " bytes");
+                return;
+            }
+            play(JsonObject.readFrom(new String(body, StandardCharsets.UTF_8)), req, resp);
+            return;
+        }
+        AsyncContext async = req.startAsync();
+        JsonBodyReader.read(req, async, body -> {
+            play(body, req, resp);
+            return true;
+        });
+    }
+
+    private void play(JsonObject requestObject, HttpServletRequest req, HttpServletResponse resp) throws IOException {
         int index = requestObject.getInt("index", -1);
         int value = requestObject.getInt("value", -1);
         if (index != -1 && value != -1) {
-            JsonObject reply = new JsonObject();
-            List<Cell> cells = grid.play(index, value);
+            String requested = requestObject.getString("game", null);
+            if (requested == null && (requested = cookieValue(req)) == null) {
+                resp.sendError(SC_NOT_FOUND, "No game named");
+                return;
+            }
+            Game game = liveGame(requested, req, resp);
+            if (game == null) {
+                return;
+            }
+            JsonObject reply = game.play(index, value, (grid, cells) -> new JsonObject()
+                    .add("cells", serializeCells(cells))
+                    .add("complete", grid.isGridCompleteAndCorrect())
+                    .add("version", grid.version()));
+            moves.increment();
             resp.setStatus(SC_OK);
-            reply.add("cells", serializeCells(cells));
-            boolean gridCompleteAndCorrect = grid.isGridCompleteAndCorrect();
-            reply.add("complete", gridCompleteAndCorrect);
-            if (gridCompleteAndCorrect) {
-                grid.resetWith(Grid.defaultGameReader());
+            if (reply.get("complete").asBoolean()) {
+                completions.increment();
+                games.remove(game.id());
+                if (game.id().equals(cookieValue(req))) {
+                    resp.addCookie(gameCookie(game.id(), 0));
+                }
             }
             resp.setContentType("application/json");
             PrintWriter writer = resp.getWriter();
@@ -61,6 +135,43 @@ public final class PlaySudokuServlet extends HttpServlet {
         }
     }
 
+    /**
+     * @return the live game of this id, or null once the request has been answered with 410
+     */
+    private Game liveGame(String id, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        Game game = games.find(id);
+        if (game == null) {
+            if (id.equals(cookieValue(req))) {
+                resp.addCookie(gameCookie(id, 0));
+            }
+            resp.sendError(SC_GONE, "No game " + id);
+        }
+        return game;
+    }
+
+    /**
+     * @param maxAge -1 to keep the cookie for the browser session, 0 to clear it
+     */
+    private static Cookie gameCookie(String id, int maxAge) {
+        Cookie cookie = new Cookie(GAME_COOKIE, id);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge(maxAge);
+        return cookie;
+    }
+
+    private static String cookieValue(HttpServletRequest req) {
+        Cookie[] cookies = req.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (GAME_COOKIE.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
     private JsonArray serializeCells(List<Cell> cells) {
         JsonArray array = new JsonArray();
         cells.forEach(cell -> {
@@ -0,0 +1,191 @@
+package io.hahai.sudoku.server;
+
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import io.hahai.sudoku.canonical.SolutionCache;
+import io.hahai.sudoku.canonical.SolutionLookup;
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.grid.GridTopology;
+import io.hahai.sudoku.metrics.MetricsRegistry;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static javax.servlet.http.HttpServletResponse.SC_GATEWAY_TIMEOUT;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+
+/**
+ * Solves posted puzzles: {@code {"puzzle": "8..........36...", "solver": "propagating", "deadlineMillis": 500}}.
+ * Solves run on a fixed pool of workers behind a bounded queue; when the queue is full the request is refused
+ * at once with 503. Each request's deadline counts from its arrival, so time spent queued is included. A solve
+ * still running at the deadline is stopped and answered with 504; a puzzle with no solution gets 422. Solutions
+ * are kept in a {@link SolutionCache} by canonical form, so a puzzle equivalent to one solved before is answered
+ * without solving. Each solver's cost, each outcome and the cache's hits and misses are counted in a
+ * {@link MetricsRegistry}.
+ */
+public final class SolveSudokuServlet extends HttpServlet {
+
+    public static final long DEFAULT_MAX_DEADLINE_MILLIS = 2_000;
+    public static final int DEFAULT_CACHED_SOLUTIONS = 10_000;
+    static final int SC_UNPROCESSABLE_ENTITY = 422;
+
+    private final ThreadPoolExecutor executor;
+    private final long maxDeadlineMillis;
+    private final MetricsRegistry metrics;
+    private final ThreadLocal<SolutionLookup> lookups;
+
+    public SolveSudokuServlet(int workers, int maxQueued) {
+        this(workers, maxQueued, DEFAULT_MAX_DEADLINE_MILLIS);
+    }
+
+    public SolveSudokuServlet(int workers, int maxQueued, long maxDeadlineMillis) {
+        this(workers, maxQueued, maxDeadlineMillis, new MetricsRegistry());
+    }
+
+    public SolveSudokuServlet(int workers, int maxQueued, long maxDeadlineMillis, MetricsRegistry metrics) {
+        this(workers, maxQueued, maxDeadlineMillis, metrics, new SolutionCache(DEFAULT_CACHED_SOLUTIONS));
+    }
+
+    public SolveSudokuServlet(int workers, int maxQueued, long maxDeadlineMillis, MetricsRegistry metrics,
+                              SolutionCache cache) {
+        if (workers < 1 || maxQueued < 1 || maxDeadlineMillis < 1) {
+            throw new IllegalArgumentException("Workers, queue size and deadline must be positive");
+        }
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(maxQueued));
+        this.maxDeadlineMillis = maxDeadlineMillis;
+        this.metrics = metrics;
+        this.lookups = ThreadLocal.withInitial(() -> new SolutionLookup(cache));
+        metrics.gauge("sudoku_solves_queued", () -> executor.getQueue().size());
+        metrics.gauge("sudoku_solution_cache_hits_total", cache::hits);
+        metrics.gauge("sudoku_solution_cache_misses_total", cache::misses);
+        metrics.gauge("sudoku_solution_cache_evictions_total", cache::evictions);
+        metrics.gauge("sudoku_solution_cache_entries", cache::size);
+    }
+
+    @Override protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (!req.isAsyncSupported()) {
+            throw new ServletException("Solving needs async support");
+        }
+        long arrived = System.nanoTime();
+        AsyncContext async = req.startAsync();
+        async.setTimeout(0);
+        JsonBodyReader.read(req, async, body -> submit(body, arrived, async, resp));
+    }
+
+    @Override public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private boolean submit(JsonObject body, long arrived, AsyncContext async, HttpServletResponse resp) throws IOException {
+        String puzzle = body.getString("puzzle", null);
+        if (puzzle == null) {
+            throw new IllegalArgumentException("No puzzle given");
+        }
+        Grid grid = new Grid(new StringReader(puzzle));
+        if (!grid.isGridInitialisedCorrectly()) {
+            throw new IllegalArgumentException("Puzzle is not a valid grid");
+        }
+        SolverChoice solver = SolverChoice.forKey(body.getString("solver", SolverChoice.PROPAGATING.key()));
+        long deadlineMillis = Math.min(body.getLong("deadlineMillis", maxDeadlineMillis), maxDeadlineMillis);
+        if (deadlineMillis < 1) {
+            throw new IllegalArgumentException("Deadline must be positive");
+        }
+        long deadline = arrived + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        int[] values = new int[grid.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = grid.getValueAt(i);
+        }
+        try {
+            executor.execute(() -> solve(grid.topology(), values, solver, arrived, deadline, async, resp));
+            return false;
+        } catch (RejectedExecutionException e) {
+            count(solver, "rejected");
+            resp.setHeader("Retry-After", "1");
+            reply(resp, SC_SERVICE_UNAVAILABLE, new JsonObject().add("error", "Too many puzzles waiting to be solved"));
+            return true;
+        }
+    }
+
+    private void solve(GridTopology topology, int[] values, SolverChoice solver, long arrived, long deadline,
+                       AsyncContext async, HttpServletResponse resp) {
+        try {
+            SolutionLookup lookup = lookups.get();
+            Deadline stopped = new Deadline(deadline);
+            boolean cached = !stopped.getAsBoolean() && lookup.fill(topology, values);
+            boolean solved = cached || !stopped.getAsBoolean()
+                    && solver.solve(topology, values, stopped, metrics.solver(solver.key()));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - arrived);
+            if (solved) {
+                count(solver, "solved");
+                if (!cached) {
+                    lookup.store(values);
+                }
+                JsonArray solution = new JsonArray();
+                for (int value : values) {
+                    solution.add(value);
+                }
+                reply(resp, SC_OK, new JsonObject().add("solved", true).add("solver", solver.key())
+                        .add("cached", cached).add("solution", solution).add("elapsedMillis", elapsedMillis));
+            } else if (stopped.passed) {
+                count(solver, "timeout");
+                reply(resp, SC_GATEWAY_TIMEOUT, new JsonObject().add("solved", false).add("error", "Deadline passed")
+                        .add("elapsedMillis", elapsedMillis));
+            } else {
+                count(solver, "unsolvable");
+                reply(resp, SC_UNPROCESSABLE_ENTITY, new JsonObject().add("solved", false).add("error", "Puzzle has no solution")
+                        .add("elapsedMillis", elapsedMillis));
+            }
+        } catch (IOException e) {
+            log("Could not send solve reply", e);
+        } finally {
+            async.complete();
+        }
+    }
+
+    private void count(SolverChoice solver, String outcome) {
+        metrics.counter("sudoku_solves_total{solver=\"" + solver.key() + "\",outcome=\"" + outcome + "\"}").increment();
+    }
+
+    private static void reply(HttpServletResponse resp, int status, JsonObject reply) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        PrintWriter writer = resp.getWriter();
+        reply.writeTo(writer);
+        writer.close();
+    }
+
+    /**
+     * Stops the solver once the deadline passes and remembers that it did, so a search that ends just before
+     * the deadline is not mistaken for one that was cut short.
+     */
+    private static final class Deadline implements BooleanSupplier {
+
+        private final long nanos;
+        private volatile boolean passed;
+
+        Deadline(long nanos) {
+            this.nanos = nanos;
+        }
+
+        @Override public boolean getAsBoolean() {
+            if (!passed && System.nanoTime() >= nanos) {
+                passed = true;
+            }
+            return passed;
+        }
+
+    }
+
+}
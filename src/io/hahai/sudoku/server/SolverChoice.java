@@ -0,0 +1,96 @@
+package io.hahai.sudoku.server;
+
+import io.hahai.sudoku.grid.GridTopology;
+import io.hahai.sudoku.metrics.SolverMetrics;
+import io.hahai.sudoku.solver.BacktrackingSolver;
+import io.hahai.sudoku.solver.CandidateState;
+import io.hahai.sudoku.solver.ConstraintPropagator;
+import io.hahai.sudoku.solver.DancingLinksSolver;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The solvers the solve endpoint offers, named in requests by {@link #key()}. Only solvers that can be
+ * stopped part way are offered, so every request can be held to its deadline. Each thread solving requests
+ * keeps one set of solvers and search states, built on first use, so a request allocates no search structures.
+ */
+enum SolverChoice {
+    BACKTRACKING {
+        @Override boolean solve(GridTopology topology, int[] values, BooleanSupplier stopped, SolverMetrics metrics) {
+            WorkerSolvers solvers = SOLVERS.get();
+            return solveByBacktracking(solvers.backtracking, null, solvers.stateFor(topology), values, stopped, metrics);
+        }
+    },
+    PROPAGATING {
+        @Override boolean solve(GridTopology topology, int[] values, BooleanSupplier stopped, SolverMetrics metrics) {
+            WorkerSolvers solvers = SOLVERS.get();
+            return solveByBacktracking(solvers.propagating, solvers.propagator, solvers.stateFor(topology), values, stopped,
+                                       metrics);
+        }
+    },
+    DANCING_LINKS {
+        @Override boolean solve(GridTopology topology, int[] values, BooleanSupplier stopped, SolverMetrics metrics) {
+            long start = System.nanoTime();
+            DancingLinksSolver solver = SOLVERS.get().dancingLinksFor(topology);
+            boolean solved = solver.solve(topology, values, stopped);
+            metrics.record(System.nanoTime() - start, solver.nodes(), 0);
+            return solved;
+        }
+    };
+
+    private static final ThreadLocal<WorkerSolvers> SOLVERS = ThreadLocal.withInitial(WorkerSolvers::new);
+
+    /**
+     * Fills the zeroes of {@code values} in place, recording the time taken and the work done.
+     *
+     * @return false when there is no solution or {@code stopped} reported true first
+     */
+    abstract boolean solve(GridTopology topology, int[] values, BooleanSupplier stopped, SolverMetrics metrics);
+
+    String key() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+    static SolverChoice forKey(String key) throws IllegalArgumentException {
+        for (SolverChoice choice : values()) {
+            if (choice.key().equals(key)) {
+                return choice;
+            }
+        }
+        throw new IllegalArgumentException("Unknown solver: " + key);
+    }
+
+    private static boolean solveByBacktracking(BacktrackingSolver solver, ConstraintPropagator propagator, CandidateState state,
+                                               int[] values, BooleanSupplier stopped, SolverMetrics metrics) {
+        long start = System.nanoTime();
+        long applications = propagator == null ? 0 : propagator.applications();
+        boolean solved = state.load(values) && solver.solve(state, stopped);
+        applications = propagator == null ? 0 : propagator.applications() - applications;
+        metrics.record(System.nanoTime() - start, solver.nodes(), applications);
+        if (solved) {
+            state.copyValuesTo(values);
+        }
+        return solved;
+    }
+
+    /**
+     * One thread's solvers, with a search state and an exact cover matrix kept for each topology it has met.
+     */
+    private static final class WorkerSolvers {
+        final BacktrackingSolver backtracking = new BacktrackingSolver();
+        final ConstraintPropagator propagator = ConstraintPropagator.standard();
+        final BacktrackingSolver propagating = new BacktrackingSolver(propagator);
+        private final Map<GridTopology, CandidateState> states = new HashMap<>();
+        private final Map<GridTopology, DancingLinksSolver> dancingLinks = new HashMap<>();
+
+        CandidateState stateFor(GridTopology topology) {
+            return states.computeIfAbsent(topology, CandidateState::new);
+        }
+
+        DancingLinksSolver dancingLinksFor(GridTopology topology) {
+            return dancingLinks.computeIfAbsent(topology, unused -> new DancingLinksSolver());
+        }
+    }
+}
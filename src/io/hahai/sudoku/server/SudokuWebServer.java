@@ -1,9 +1,12 @@
 package io.hahai.sudoku.server;
 
 import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.metrics.MetricsRegistry;
 import org.eclipse.jetty.server.Server;
 
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Paths;
 
 import static io.hahai.sudoku.server.builder.HttpServerBuilder.ServletsBuilder.sb;
 import static io.hahai.sudoku.server.builder.HttpServerBuilder.builder;
@@ -11,11 +14,29 @@ import static io.hahai.sudoku.server.builder.HttpServerBuilder.builder;
 public final class SudokuWebServer {
 
     public static void main(String[] args) throws Exception {
-        Grid grid = new Grid(Grid.defaultGameReader());
-        Server server = builder().port(9900)
-                .addToContext("/v1/sudoku/", sb().addServlet("/grid", new PlaySudokuServlet(grid)))
+        FileGameJournal journal = FileGameJournal.open(Paths.get(args.length > 0 ? args[0] : "games"));
+        GameRegistry games = new GameRegistry(() -> new Grid(Grid.defaultGameReader()),
+                GameRegistry.DEFAULT_MAX_GAMES, GameRegistry.DEFAULT_IDLE_MILLIS, journal);
+        journal.recover(games);
+        MetricsRegistry metrics = new MetricsRegistry();
+        Server server = builder().port(9900).metrics(metrics)
+                .addToContext("/v1/sudoku/", sb().addServlet("/grid", new PlaySudokuServlet(games, metrics))
+                        .addServlet("/solve", new SolveSudokuServlet(Runtime.getRuntime().availableProcessors(), 64,
+                                SolveSudokuServlet.DEFAULT_MAX_DEADLINE_MILLIS, metrics)))
                 .addToContext("/", sb().addDefault("/*", resolve("web_resources/"))).build();
         server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.stop();
+            } catch (Exception e) {
+                System.err.println("Could not stop the server: " + e);
+            }
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Could not flush the game journal: " + e);
+            }
+        }, "sudoku-shutdown"));
     }
 
     private static String resolve(String path) {
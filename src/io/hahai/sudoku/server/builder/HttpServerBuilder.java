@@ -1,20 +1,57 @@
 package io.hahai.sudoku.server.builder;
 
+import io.hahai.sudoku.metrics.MetricsRegistry;
+import io.hahai.sudoku.metrics.MetricsServlet;
+import io.hahai.sudoku.metrics.RequestTimingFilter;
+import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.servlet.DefaultServlet;
+import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.thread.ExecutorThreadPool;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.http.HttpServlet;
 import java.util.*;
-
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Builds a Jetty server with one connector. Unless an executor is given, requests run on a bounded
+ * {@link QueuedThreadPool}: {@code maxThreads} threads, with up to {@code maxQueuedRequests} more waiting
+ * for one. A connection only holds a thread while a request is being handled, and every servlet is
+ * registered with async support, so a server can hold far more idle connections than it has threads.
+ * Given a {@link MetricsRegistry}, the server times every servlet's requests into it and serves it as plain
+ * text on {@value #METRICS_PATH}.
+ */
 public final class HttpServerBuilder {
 
+    public static final int DEFAULT_MIN_THREADS = 8;
+    public static final int DEFAULT_MAX_THREADS = 200;
+    public static final int DEFAULT_MAX_QUEUED_REQUESTS = 10_000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30_000;
+    public static final String METRICS_PATH = "/metrics";
+    private static final int THREAD_IDLE_TIMEOUT_MILLIS = 60_000;
+
     private int port = 0;
+    private int acceptors = -1;
+    private int selectors = -1;
+    private int acceptQueueSize = 0;
+    private long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+    private int minThreads = DEFAULT_MIN_THREADS;
+    private int maxThreads = DEFAULT_MAX_THREADS;
+    private int maxQueuedRequests = DEFAULT_MAX_QUEUED_REQUESTS;
+    private ExecutorService executor;
+    private MetricsRegistry metrics;
 
     private LinkedList<ContextHandler> contextsList;
+    private final Map<ServletContextHandler, List<String>> servletUrls = new LinkedHashMap<>();
 
     public HttpServerBuilder() {
         contextsList = new LinkedList<>();
@@ -29,8 +66,69 @@ public final class HttpServerBuilder {
         return this;
     }
 
+    /**
+     * Threads accepting connections; -1 lets Jetty choose from the number of cores.
+     */
+    public HttpServerBuilder acceptors(int acceptors) {
+        this.acceptors = acceptors;
+        return this;
+    }
+
+    /**
+     * Selector threads watching open connections for I/O; -1 lets Jetty choose from the number of cores.
+     */
+    public HttpServerBuilder selectors(int selectors) {
+        this.selectors = selectors;
+        return this;
+    }
+
+    public HttpServerBuilder acceptQueueSize(int acceptQueueSize) {
+        this.acceptQueueSize = acceptQueueSize;
+        return this;
+    }
+
+    public HttpServerBuilder idleTimeout(long millis) {
+        this.idleTimeoutMillis = millis;
+        return this;
+    }
+
+    public HttpServerBuilder threads(int minThreads, int maxThreads) {
+        if (minThreads < 1 || maxThreads < minThreads) {
+            throw new IllegalArgumentException("Threads must be at least 1 and max no less than min, were " + minThreads + " and " + maxThreads);
+        }
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        return this;
+    }
+
+    public HttpServerBuilder maxQueuedRequests(int maxQueuedRequests) {
+        this.maxQueuedRequests = maxQueuedRequests;
+        return this;
+    }
+
+    /**
+     * Runs requests on the given executor instead of the bounded pool, for instance a virtual thread per task
+     * executor on runtimes that have them. Jetty shuts it down when the server stops.
+     */
+    public HttpServerBuilder executor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Records a {@code sudoku_request_micros} histogram for each servlet added, labelled with its endpoint, and
+     * serves the registry on {@value #METRICS_PATH}.
+     */
+    public HttpServerBuilder metrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
     public Server build() {
         final Server server = makeServer();
+        if (metrics != null) {
+            addMetrics();
+        }
         ContextHandlerCollection contexts = new ContextHandlerCollection();
         contexts.setHandlers(contextsList.toArray(new ContextHandler[contextsList.size()]));
         server.setHandler(contexts);
@@ -38,16 +136,52 @@ public final class HttpServerBuilder {
     }
 
     private Server makeServer() {
-        return new Server(port);
+        final Server server = new Server(makeThreadPool());
+        ServerConnector connector = new ServerConnector(server, acceptors, selectors, new HttpConnectionFactory());
+        connector.setPort(port);
+        connector.setIdleTimeout(idleTimeoutMillis);
+        connector.setAcceptQueueSize(acceptQueueSize);
+        server.addConnector(connector);
+        return server;
+    }
+
+    private void addMetrics() {
+        for (Map.Entry<ServletContextHandler, List<String>> context : servletUrls.entrySet()) {
+            for (String url : context.getValue()) {
+                String endpoint = (context.getKey().getContextPath() + url).replaceAll("/+", "/");
+                FilterHolder timing = new FilterHolder(new RequestTimingFilter(
+                        metrics.histogram("sudoku_request_micros{endpoint=\"" + endpoint + "\"}")));
+                timing.setAsyncSupported(true);
+                context.getKey().addFilter(timing, url, EnumSet.of(DispatcherType.REQUEST));
+            }
+        }
+        ServletContextHandler context = new ServletContextHandler();
+        context.setContextPath(METRICS_PATH);
+        context.addServlet(new ServletHolder(new MetricsServlet(metrics)), "/*");
+        contextsList.add(context);
+    }
+
+    private ThreadPool makeThreadPool() {
+        if (executor != null) {
+            return new ExecutorThreadPool(executor);
+        }
+        QueuedThreadPool pool = new QueuedThreadPool(maxThreads, minThreads, THREAD_IDLE_TIMEOUT_MILLIS,
+                new BlockingArrayQueue<>(minThreads, minThreads, maxQueuedRequests));
+        pool.setName("sudoku-http");
+        return pool;
     }
 
     public HttpServerBuilder addToContext(String contextPath, ServletsBuilder builder) {
         ServletContextHandler context = new ServletContextHandler();
         context.setContextPath(contextPath);
+        List<String> urls = new ArrayList<>();
         for (BuilderHolder builderHolder : builder.servlets) {
             final ServletHolder servletHolder = new ServletHolder(builderHolder.servlet);
+            servletHolder.setAsyncSupported(true);
             context.addServlet(servletHolder, builderHolder.url);
+            urls.add(builderHolder.url);
         }
+        servletUrls.put(context, urls);
         for (String url : builder.resources.keySet()) {
             context.addServlet(builder.resources.get(url), url);
         }
@@ -77,6 +211,7 @@ public final class HttpServerBuilder {
         public ServletsBuilder addDefault(String url, String flatFilesRoot) {
             ServletHolder holder = new ServletHolder(new DefaultServlet());
             holder.setInitParameter("resourceBase", flatFilesRoot);
+            holder.setAsyncSupported(true);
             resources.put(url, holder);
             return this;
         }
@@ -0,0 +1,161 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.Candidates;
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Depth first search over a {@link CandidateState}, always branching on the empty cell with the fewest
+ * candidates and undoing failed branches through the state's trail. When given a {@link ConstraintPropagator}
+ * it propagates before the search and after every placement. Instances are not thread safe.
+ */
+public final class BacktrackingSolver implements Solver {
+
+    private static final BooleanSupplier NEVER = () -> false;
+
+    private final ConstraintPropagator propagator;
+    private CandidateState state;
+    private BooleanSupplier stopped = NEVER;
+    private long nodes;
+    private long backtracks;
+
+    public BacktrackingSolver() {
+        this(null);
+    }
+
+    public BacktrackingSolver(ConstraintPropagator propagator) {
+        this.propagator = propagator;
+    }
+
+    @Override public void attemptSolve(Grid grid) {
+        CandidateState state = stateFor(grid.topology());
+        nodes = 0;
+        backtracks = 0;
+        if (state.load(grid) && solve(state)) {
+            for (int i = 0; i < grid.size(); i++) {
+                if (grid.getValueAt(i) == 0) {
+                    grid.play(i, state.value(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches from the given state, leaving it solved on success and as it was found on failure.
+     */
+    public boolean solve(CandidateState state) {
+        return solve(state, NEVER);
+    }
+
+    /**
+     * As {@link #solve(CandidateState)}, giving up once {@code stopped} reports true. It is checked at every node.
+     */
+    public boolean solve(CandidateState state, BooleanSupplier stopped) {
+        this.stopped = stopped;
+        nodes = 0;
+        backtracks = 0;
+        if (state.isContradicted()) {
+            return false;
+        }
+        int mark = state.mark();
+        if (propagate(state) && search(state)) {
+            return true;
+        }
+        state.rollback(mark);
+        return false;
+    }
+
+    /**
+     * Counts the solutions of the grid, stopping once {@code limit} have been found. The grid is not changed.
+     */
+    public int countSolutions(Grid grid, int limit) {
+        CandidateState state = stateFor(grid.topology());
+        if (!state.load(grid)) {
+            return 0;
+        }
+        return countSolutions(state, limit);
+    }
+
+    /**
+     * Counts the solutions reachable from the given state, stopping once {@code limit} have been found, so a
+     * limit of 2 answers whether a puzzle is unique. The state is left as it was found.
+     */
+    public int countSolutions(CandidateState state, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Solution limit must be positive, was " + limit);
+        }
+        this.stopped = NEVER;
+        nodes = 0;
+        backtracks = 0;
+        if (state.isContradicted()) {
+            return 0;
+        }
+        int mark = state.mark();
+        int found = propagate(state) ? count(state, limit, 0) : 0;
+        state.rollback(mark);
+        return found;
+    }
+
+    public long nodes() {
+        return nodes;
+    }
+
+    public long backtracks() {
+        return backtracks;
+    }
+
+    private boolean search(CandidateState state) {
+        int cell = state.mostConstrainedCell();
+        if (cell < 0) {
+            return true;
+        }
+        int options = state.candidates(cell);
+        while (options != 0 && !stopped.getAsBoolean()) {
+            int value = Candidates.lowestValue(options);
+            options &= options - 1;
+            int mark = state.mark();
+            nodes++;
+            if (state.place(cell, value) && propagate(state) && search(state)) {
+                return true;
+            }
+            state.rollback(mark);
+            backtracks++;
+        }
+        return false;
+    }
+
+    private int count(CandidateState state, int limit, int found) {
+        int cell = state.mostConstrainedCell();
+        if (cell < 0) {
+            return found + 1;
+        }
+        int options = state.candidates(cell);
+        while (options != 0 && found < limit) {
+            int value = Candidates.lowestValue(options);
+            options &= options - 1;
+            int mark = state.mark();
+            nodes++;
+            if (state.place(cell, value) && propagate(state)) {
+                found = count(state, limit, found);
+            } else {
+                backtracks++;
+            }
+            state.rollback(mark);
+        }
+        return found;
+    }
+
+    private boolean propagate(CandidateState state) {
+        return propagator == null || propagator.propagate(state);
+    }
+
+    private CandidateState stateFor(GridTopology topology) {
+        if (state == null || state.topology() != topology) {
+            state = new CandidateState(topology);
+        }
+        return state;
+    }
+
+}
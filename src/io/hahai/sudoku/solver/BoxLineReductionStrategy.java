@@ -0,0 +1,48 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.Candidates;
+import io.hahai.sudoku.grid.GridTopology;
+
+/**
+ * When every candidate for a value on a row or column lies inside one block, that value is removed from the
+ * rest of the block off that line.
+ */
+public final class BoxLineReductionStrategy implements PropagationStrategy {
+
+    @Override public boolean apply(CandidateState state) {
+        boolean progress = false;
+        GridTopology topology = state.topology();
+        int dimension = topology.dimension();
+        for (int line = 0; line < dimension && !state.isContradicted(); line++) {
+            progress |= reduce(state, topology.row(line), true);
+            progress |= reduce(state, topology.column(line), false);
+        }
+        return progress;
+    }
+
+    private boolean reduce(CandidateState state, int[] line, boolean isRow) {
+        boolean progress = false;
+        GridTopology topology = state.topology();
+        for (int value = 1; value <= topology.dimension(); value++) {
+            int block = -1;
+            for (int cell : line) {
+                if (Candidates.contains(state.candidates(cell), value)) {
+                    block = block == -1 || block == topology.blockOf(cell) ? topology.blockOf(cell) : -2;
+                }
+            }
+            if (block >= 0) {
+                for (int cell : topology.block(block)) {
+                    if (!onLine(topology, line, cell, isRow)) {
+                        progress |= state.eliminate(cell, Candidates.bitFor(value));
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+    private boolean onLine(GridTopology topology, int[] line, int cell, boolean isRow) {
+        return isRow ? topology.rowOf(cell) == topology.rowOf(line[0]) : topology.columnOf(cell) == topology.columnOf(line[0]);
+    }
+
+}
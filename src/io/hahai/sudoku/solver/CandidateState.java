@@ -0,0 +1,219 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.Candidates;
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.util.Arrays;
+
+/**
+ * Primitive search state: the value and candidate mask of every cell, plus a trail of every change so that
+ * search code can {@link #mark()} a position and {@link #rollback(int)} to it instead of copying the state.
+ * Placing a value removes it from the candidates of every peer; the state becomes contradicted when an empty
+ * cell is left without candidates or a value is placed where it is not a candidate.
+ */
+public final class CandidateState {
+
+    private final GridTopology topology;
+    private final int allCandidates;
+    private final int[] values;
+    private final int[] candidates;
+    private final int[] trailCells;
+    private final int[] trailMasks;
+    private int trailSize;
+    private int emptyCells;
+    private int eliminated;
+    private boolean contradicted;
+
+    public CandidateState(GridTopology topology) {
+        this.topology = topology;
+        this.allCandidates = Candidates.allFor(topology.dimension());
+        int size = topology.size();
+        values = new int[size];
+        candidates = new int[size];
+        trailCells = new int[size * (topology.dimension() + 1)];
+        trailMasks = new int[trailCells.length];
+        clear();
+    }
+
+    public CandidateState(CandidateState other) {
+        this(other.topology);
+        copyFrom(other);
+    }
+
+    public GridTopology topology() {
+        return topology;
+    }
+
+    public boolean load(Grid grid) {
+        clear();
+        for (int cell = 0; cell < values.length; cell++) {
+            int value = grid.getValueAt(cell);
+            if (value != 0 && !place(cell, value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean load(int[] givens) {
+        clear();
+        for (int cell = 0; cell < values.length; cell++) {
+            int value = givens[cell];
+            if (value != 0 && !place(cell, value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void copyFrom(CandidateState other) {
+        if (other.topology != topology) {
+            throw new IllegalArgumentException("Cannot copy a state of dimension " + other.topology.dimension() + " into dimension " + topology.dimension());
+        }
+        System.arraycopy(other.values, 0, values, 0, values.length);
+        System.arraycopy(other.candidates, 0, candidates, 0, candidates.length);
+        trailSize = 0;
+        emptyCells = other.emptyCells;
+        eliminated = other.eliminated;
+        contradicted = other.contradicted;
+    }
+
+    public void copyValuesTo(int[] target) {
+        System.arraycopy(values, 0, target, 0, values.length);
+    }
+
+    public int value(int cell) {
+        return values[cell];
+    }
+
+    public int candidates(int cell) {
+        return candidates[cell];
+    }
+
+    public int emptyCells() {
+        return emptyCells;
+    }
+
+    /**
+     * @return the candidates removed through {@link #eliminate(int, int)} since the state was loaded, counting
+     * those rolled back but not those a placement removed from its peers
+     */
+    public int eliminated() {
+        return eliminated;
+    }
+
+    public boolean isContradicted() {
+        return contradicted;
+    }
+
+    public boolean isSolved() {
+        return emptyCells == 0 && !contradicted;
+    }
+
+    /**
+     * @return the empty cell with the fewest candidates, or -1 when every cell holds a value
+     */
+    public int mostConstrainedCell() {
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (int cell = 0; cell < candidates.length; cell++) {
+            if (values[cell] == 0) {
+                int count = Candidates.count(candidates[cell]);
+                if (count < bestCount) {
+                    best = cell;
+                    bestCount = count;
+                    if (count <= 1) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return false when the placement leaves the state contradicted
+     */
+    public boolean place(int cell, int value) {
+        int bit = Candidates.bitFor(value);
+        if (values[cell] != 0 || (candidates[cell] & bit) == 0) {
+            contradicted = true;
+            return false;
+        }
+        push(~cell, candidates[cell]);
+        values[cell] = value;
+        candidates[cell] = 0;
+        emptyCells--;
+        for (int peer : topology.peers(cell)) {
+            if ((candidates[peer] & bit) != 0) {
+                push(peer, bit);
+                candidates[peer] &= ~bit;
+                if (candidates[peer] == 0) {
+                    contradicted = true;
+                }
+            }
+        }
+        return !contradicted;
+    }
+
+    /**
+     * @return true when at least one candidate was removed
+     */
+    public boolean eliminate(int cell, int mask) {
+        int removed = candidates[cell] & mask;
+        if (removed == 0) {
+            return false;
+        }
+        push(cell, removed);
+        candidates[cell] &= ~removed;
+        eliminated += Candidates.count(removed);
+        if (candidates[cell] == 0) {
+            contradicted = true;
+        }
+        return true;
+    }
+
+    void contradict() {
+        contradicted = true;
+    }
+
+    public int mark() {
+        return trailSize;
+    }
+
+    /**
+     * Undoes every change made since the mark was taken. Marks are expected to be taken on uncontradicted
+     * states, so rolling back also clears the contradiction.
+     */
+    public void rollback(int mark) {
+        while (trailSize > mark) {
+            trailSize--;
+            int cell = trailCells[trailSize];
+            if (cell < 0) {
+                values[~cell] = 0;
+                candidates[~cell] = trailMasks[trailSize];
+                emptyCells++;
+            } else {
+                candidates[cell] |= trailMasks[trailSize];
+            }
+        }
+        contradicted = false;
+    }
+
+    private void clear() {
+        Arrays.fill(values, 0);
+        Arrays.fill(candidates, allCandidates);
+        trailSize = 0;
+        emptyCells = values.length;
+        eliminated = 0;
+        contradicted = false;
+    }
+
+    private void push(int cell, int mask) {
+        trailCells[trailSize] = cell;
+        trailMasks[trailSize] = mask;
+        trailSize++;
+    }
+
+}
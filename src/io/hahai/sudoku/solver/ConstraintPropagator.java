@@ -0,0 +1,68 @@
+package io.hahai.sudoku.solver;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs an ordered list of strategies over a {@link CandidateState} until none of them makes progress. After
+ * any strategy makes progress the run starts again from the first, so cheaper deductions are always
+ * exhausted before harder ones are tried.
+ */
+public final class ConstraintPropagator {
+
+    private final PropagationStrategy[] strategies;
+    private long applications;
+
+    public ConstraintPropagator(PropagationStrategy... strategies) {
+        this.strategies = strategies.clone();
+    }
+
+    public static ConstraintPropagator standard() {
+        return new ConstraintPropagator(standardStrategies().toArray(new PropagationStrategy[0]));
+    }
+
+    /**
+     * Every built in strategy, simplest first.
+     */
+    public static List<PropagationStrategy> standardStrategies() {
+        return Arrays.asList(new NakedSingleStrategy(), new HiddenSingleStrategy(), new PointingPairStrategy(),
+                new BoxLineReductionStrategy(), new NakedPairStrategy(), new HiddenPairStrategy());
+    }
+
+    /**
+     * @return false when the state was found to be contradicted
+     */
+    public boolean propagate(CandidateState state) {
+        return propagate(state, null);
+    }
+
+    /**
+     * As {@link #propagate(CandidateState)}, adding to {@code progress[i]} every value the i-th strategy places
+     * and every candidate it eliminates.
+     */
+    public boolean propagate(CandidateState state, int[] progress) {
+        int next = 0;
+        while (next < strategies.length && !state.isContradicted() && state.emptyCells() > 0) {
+            int emptyCells = state.emptyCells();
+            int eliminated = state.eliminated();
+            if (strategies[next].apply(state)) {
+                applications++;
+                if (progress != null) {
+                    progress[next] += emptyCells - state.emptyCells() + state.eliminated() - eliminated;
+                }
+                next = 0;
+            } else {
+                next++;
+            }
+        }
+        return !state.isContradicted();
+    }
+
+    /**
+     * @return the number of strategy runs that made progress since this propagator was created
+     */
+    public long applications() {
+        return applications;
+    }
+
+}
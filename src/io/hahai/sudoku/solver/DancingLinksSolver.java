@@ -0,0 +1,57 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Solves by exact cover (Algorithm X with dancing links). The matrix for a dimension is built on first use and
+ * its node arrays are reused for every later puzzle of that dimension. Instances are not thread safe.
+ */
+public final class DancingLinksSolver implements Solver {
+
+    private ExactCoverMatrix matrix;
+    private int[] values = new int[0];
+
+    @Override public void attemptSolve(Grid grid) {
+        GridTopology topology = grid.topology();
+        if (values.length != topology.size()) {
+            values = new int[topology.size()];
+        }
+        for (int i = 0; i < values.length; i++) {
+            values[i] = grid.getValueAt(i);
+        }
+        if (solve(topology, values)) {
+            for (int i = 0; i < values.length; i++) {
+                if (grid.getValueAt(i) == 0) {
+                    grid.play(i, values[i]);
+                }
+            }
+        }
+    }
+
+    public boolean solve(GridTopology topology, int[] values) {
+        return matrixFor(topology).solve(values);
+    }
+
+    /**
+     * As {@link #solve(GridTopology, int[])}, giving up once {@code stopped} reports true. It is checked at every
+     * node.
+     */
+    public boolean solve(GridTopology topology, int[] values, BooleanSupplier stopped) {
+        return matrixFor(topology).solve(values, stopped);
+    }
+
+    public long nodes() {
+        return matrix == null ? 0 : matrix.nodes();
+    }
+
+    private ExactCoverMatrix matrixFor(GridTopology topology) {
+        if (matrix == null || matrix.topology() != topology) {
+            matrix = new ExactCoverMatrix(topology);
+        }
+        return matrix;
+    }
+
+}
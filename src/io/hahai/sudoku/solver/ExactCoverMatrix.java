@@ -0,0 +1,222 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Knuth's dancing links over the sudoku exact cover matrix of one dimension, held in flat int arrays.
+ * The fully linked matrix is built once as a template and copied back over the working links before each puzzle.
+ */
+final class ExactCoverMatrix {
+
+    private static final int ROOT = 0;
+    private static final int CONSTRAINTS_PER_OPTION = 4;
+    private static final BooleanSupplier NEVER = () -> false;
+
+    private final GridTopology topology;
+    private final int dimension;
+    private final int firstOptionNode;
+
+    private final int[] templateLeft;
+    private final int[] templateRight;
+    private final int[] templateUp;
+    private final int[] templateDown;
+    private final int[] templateSizes;
+
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] sizes;
+    private final int[] column;
+    private final boolean[] covered;
+    private final int[] chosen;
+
+    private BooleanSupplier stopped = NEVER;
+    private long nodes;
+
+    ExactCoverMatrix(GridTopology topology) {
+        this.topology = topology;
+        this.dimension = topology.dimension();
+        int size = topology.size();
+        int columns = CONSTRAINTS_PER_OPTION * size;
+        int options = size * dimension;
+        firstOptionNode = 1 + columns;
+        int nodeCount = firstOptionNode + CONSTRAINTS_PER_OPTION * options;
+
+        templateLeft = new int[nodeCount];
+        templateRight = new int[nodeCount];
+        templateUp = new int[nodeCount];
+        templateDown = new int[nodeCount];
+        templateSizes = new int[firstOptionNode];
+        column = new int[nodeCount];
+        for (int header = 0; header <= columns; header++) {
+            templateLeft[header] = header == 0 ? columns : header - 1;
+            templateRight[header] = header == columns ? 0 : header + 1;
+            templateUp[header] = header;
+            templateDown[header] = header;
+            column[header] = header;
+        }
+        for (int cell = 0; cell < size; cell++) {
+            for (int offset = 0; offset < dimension; offset++) {
+                int first = optionNode(cell, offset);
+                linkIntoColumn(first, 1 + cell);
+                linkIntoColumn(first + 1, 1 + size + topology.rowOf(cell) * dimension + offset);
+                linkIntoColumn(first + 2, 1 + 2 * size + topology.columnOf(cell) * dimension + offset);
+                linkIntoColumn(first + 3, 1 + 3 * size + topology.blockOf(cell) * dimension + offset);
+                for (int k = 0; k < CONSTRAINTS_PER_OPTION; k++) {
+                    templateLeft[first + k] = first + (k + CONSTRAINTS_PER_OPTION - 1) % CONSTRAINTS_PER_OPTION;
+                    templateRight[first + k] = first + (k + 1) % CONSTRAINTS_PER_OPTION;
+                }
+            }
+        }
+
+        left = new int[nodeCount];
+        right = new int[nodeCount];
+        up = new int[nodeCount];
+        down = new int[nodeCount];
+        sizes = new int[firstOptionNode];
+        covered = new boolean[firstOptionNode];
+        chosen = new int[size];
+    }
+
+    GridTopology topology() {
+        return topology;
+    }
+
+    long nodes() {
+        return nodes;
+    }
+
+    /**
+     * Treats every non zero value as a given and fills the zeroes in place. Values are left untouched when the
+     * givens clash or the puzzle has no solution.
+     */
+    boolean solve(int[] values) {
+        return solve(values, NEVER);
+    }
+
+    /**
+     * As {@link #solve(int[])}, giving up once {@code stopped} reports true. It is checked at every node.
+     */
+    boolean solve(int[] values, BooleanSupplier stopped) {
+        this.stopped = stopped;
+        reset();
+        for (int cell = 0; cell < values.length; cell++) {
+            int value = values[cell];
+            if (value != 0 && !(value <= dimension && select(optionNode(cell, value - 1)))) {
+                return false;
+            }
+        }
+        if (!search(0)) {
+            return false;
+        }
+        int depth = 0;
+        while (depth < chosen.length && chosen[depth] != 0) {
+            int option = (chosen[depth] - firstOptionNode) / CONSTRAINTS_PER_OPTION;
+            values[option / dimension] = option % dimension + 1;
+            depth++;
+        }
+        return true;
+    }
+
+    private void reset() {
+        System.arraycopy(templateLeft, 0, left, 0, left.length);
+        System.arraycopy(templateRight, 0, right, 0, right.length);
+        System.arraycopy(templateUp, 0, up, 0, up.length);
+        System.arraycopy(templateDown, 0, down, 0, down.length);
+        System.arraycopy(templateSizes, 0, sizes, 0, sizes.length);
+        Arrays.fill(covered, false);
+        Arrays.fill(chosen, 0);
+        nodes = 0;
+    }
+
+    private boolean select(int node) {
+        int j = node;
+        do {
+            if (covered[column[j]]) {
+                return false;
+            }
+            j = right[j];
+        } while (j != node);
+        do {
+            cover(column[j]);
+            j = right[j];
+        } while (j != node);
+        return true;
+    }
+
+    private boolean search(int depth) {
+        if (right[ROOT] == ROOT) {
+            return true;
+        }
+        int best = right[ROOT];
+        for (int header = right[best]; header != ROOT && sizes[best] > 1; header = right[header]) {
+            if (sizes[header] < sizes[best]) {
+                best = header;
+            }
+        }
+        if (sizes[best] == 0) {
+            return false;
+        }
+        cover(best);
+        for (int row = down[best]; row != best && !stopped.getAsBoolean(); row = down[row]) {
+            nodes++;
+            chosen[depth] = row;
+            for (int j = right[row]; j != row; j = right[j]) {
+                cover(column[j]);
+            }
+            if (search(depth + 1)) {
+                return true;
+            }
+            for (int j = left[row]; j != row; j = left[j]) {
+                uncover(column[j]);
+            }
+        }
+        chosen[depth] = 0;
+        uncover(best);
+        return false;
+    }
+
+    private void cover(int header) {
+        covered[header] = true;
+        left[right[header]] = left[header];
+        right[left[header]] = right[header];
+        for (int i = down[header]; i != header; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                up[down[j]] = up[j];
+                down[up[j]] = down[j];
+                sizes[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int header) {
+        for (int i = up[header]; i != header; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                sizes[column[j]]++;
+                up[down[j]] = j;
+                down[up[j]] = j;
+            }
+        }
+        left[right[header]] = header;
+        right[left[header]] = header;
+        covered[header] = false;
+    }
+
+    private int optionNode(int cell, int offset) {
+        return firstOptionNode + CONSTRAINTS_PER_OPTION * (cell * dimension + offset);
+    }
+
+    private void linkIntoColumn(int node, int header) {
+        column[node] = header;
+        templateUp[node] = templateUp[header];
+        templateDown[node] = header;
+        templateDown[templateUp[header]] = node;
+        templateUp[header] = node;
+        templateSizes[header]++;
+    }
+
+}
@@ -0,0 +1,47 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.Candidates;
+
+/**
+ * Two values that can only go in the same two cells of a unit claim those cells, so every other candidate
+ * is removed from them.
+ */
+public final class HiddenPairStrategy implements PropagationStrategy {
+
+    @Override public boolean apply(CandidateState state) {
+        boolean progress = false;
+        int dimension = state.topology().dimension();
+        int[] positions = new int[dimension];
+        for (int[] unit : state.topology().units()) {
+            if (state.isContradicted()) {
+                break;
+            }
+            for (int offset = 0; offset < dimension; offset++) {
+                positions[offset] = 0;
+            }
+            for (int position = 0; position < unit.length; position++) {
+                int candidates = state.candidates(unit[position]);
+                while (candidates != 0) {
+                    positions[Candidates.lowestValue(candidates) - 1] |= 1 << position;
+                    candidates &= candidates - 1;
+                }
+            }
+            for (int first = 0; first < dimension; first++) {
+                if (Integer.bitCount(positions[first]) != 2) {
+                    continue;
+                }
+                for (int second = first + 1; second < dimension; second++) {
+                    if (positions[second] == positions[first]) {
+                        int keep = Candidates.bitFor(first + 1) | Candidates.bitFor(second + 1);
+                        int cells = positions[first];
+                        progress |= state.eliminate(unit[Integer.numberOfTrailingZeros(cells)], ~keep);
+                        progress |= state.eliminate(unit[31 - Integer.numberOfLeadingZeros(cells)], ~keep);
+                        break;
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+}
@@ -0,0 +1,50 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.Candidates;
+
+/**
+ * Places a value in the only cell of a unit that can still hold it.
+ */
+public final class HiddenSingleStrategy implements PropagationStrategy {
+
+    @Override public boolean apply(CandidateState state) {
+        boolean progress = false;
+        int all = Candidates.allFor(state.topology().dimension());
+        for (int[] unit : state.topology().units()) {
+            if (state.isContradicted()) {
+                break;
+            }
+            int once = 0;
+            int more = 0;
+            int placed = 0;
+            for (int cell : unit) {
+                int value = state.value(cell);
+                if (value != 0) {
+                    placed |= Candidates.bitFor(value);
+                } else {
+                    int candidates = state.candidates(cell);
+                    more |= once & candidates;
+                    once |= candidates;
+                }
+            }
+            if (((once | placed) & all) != all) {
+                state.contradict();
+                break;
+            }
+            int hidden = once & ~more & ~placed;
+            while (hidden != 0 && !state.isContradicted()) {
+                int value = Candidates.lowestValue(hidden);
+                hidden &= hidden - 1;
+                for (int cell : unit) {
+                    if (Candidates.contains(state.candidates(cell), value)) {
+                        state.place(cell, value);
+                        progress = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+}
@@ -0,0 +1,33 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.Candidates;
+
+/**
+ * Two cells of a unit sharing the same two candidates take both values, so no other cell of that unit can.
+ */
+public final class NakedPairStrategy implements PropagationStrategy {
+
+    @Override public boolean apply(CandidateState state) {
+        boolean progress = false;
+        for (int[] unit : state.topology().units()) {
+            for (int i = 0; i < unit.length && !state.isContradicted(); i++) {
+                int pair = state.candidates(unit[i]);
+                if (Candidates.count(pair) != 2) {
+                    continue;
+                }
+                for (int j = i + 1; j < unit.length; j++) {
+                    if (state.candidates(unit[j]) == pair) {
+                        for (int cell : unit) {
+                            if (cell != unit[i] && cell != unit[j]) {
+                                progress |= state.eliminate(cell, pair);
+                            }
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+}
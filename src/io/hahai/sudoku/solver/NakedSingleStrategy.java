@@ -0,0 +1,23 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.Candidates;
+
+/**
+ * Places a value in every empty cell left with exactly one candidate.
+ */
+public final class NakedSingleStrategy implements PropagationStrategy {
+
+    @Override public boolean apply(CandidateState state) {
+        boolean progress = false;
+        int size = state.topology().size();
+        for (int cell = 0; cell < size && !state.isContradicted(); cell++) {
+            int candidates = state.candidates(cell);
+            if (state.value(cell) == 0 && Candidates.count(candidates) == 1) {
+                state.place(cell, Candidates.lowestValue(candidates));
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+}
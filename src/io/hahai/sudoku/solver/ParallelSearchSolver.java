@@ -0,0 +1,179 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.Candidates;
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.grid.GridTopology;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Splits the search tree at its shallow branch points into fork/join tasks and searches deeper subtrees
+ * sequentially. A branch point is only split while it is above the split depth and still has more than a
+ * quarter of its cells empty; smaller subtrees cost less to search than to schedule. Each task carries just
+ * the values it starts from, and each worker thread loads them into its own search state and solvers, built
+ * once and reused for every task it runs. The first task to find a solution publishes it and every other task
+ * stops at its next node.
+ */
+public final class ParallelSearchSolver implements Solver {
+
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private final LongAdder nodes = new LongAdder();
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    public ParallelSearchSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelSearchSolver(ForkJoinPool pool) {
+        this(pool, defaultSplitDepth(pool.getParallelism()));
+    }
+
+    public ParallelSearchSolver(ForkJoinPool pool, int splitDepth) {
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+    }
+
+    @Override public void attemptSolve(Grid grid) {
+        CandidateState state = new CandidateState(grid.topology());
+        if (!state.load(grid)) {
+            return;
+        }
+        int[] solution = solve(state);
+        if (solution != null) {
+            for (int i = 0; i < grid.size(); i++) {
+                if (grid.getValueAt(i) == 0) {
+                    grid.play(i, solution[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the values of a solution reachable from the state, or null when there is none
+     */
+    public int[] solve(CandidateState state) {
+        nodes.reset();
+        Search search = new Search(state);
+        if (!state.isContradicted()) {
+            pool.invoke(new SearchTask(search, null, 0));
+        }
+        return search.solution.get();
+    }
+
+    /**
+     * @return the nodes visited by every task of the last solve
+     */
+    public long nodes() {
+        return nodes.sum();
+    }
+
+    /**
+     * A single worker gains nothing from splitting, so it searches the whole tree sequentially.
+     */
+    private static int defaultSplitDepth(int parallelism) {
+        return parallelism <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(parallelism) + 2;
+    }
+
+    private static final class Search {
+        private final CandidateState root;
+        private final AtomicReference<int[]> solution = new AtomicReference<>();
+
+        private Search(CandidateState root) {
+            this.root = root;
+        }
+
+        private boolean isFinished() {
+            return solution.get() != null;
+        }
+
+        private void offer(CandidateState state) {
+            int[] values = new int[state.topology().size()];
+            state.copyValuesTo(values);
+            solution.compareAndSet(null, values);
+        }
+    }
+
+    /**
+     * One worker thread's search state and solvers. A task must be done with them before it joins others, since
+     * the thread may run other tasks while it waits.
+     */
+    private static final class Worker {
+        private final ConstraintPropagator propagator = ConstraintPropagator.standard();
+        private final BacktrackingSolver solver = new BacktrackingSolver(propagator);
+        private CandidateState state;
+
+        private CandidateState stateFor(GridTopology topology) {
+            if (state == null || state.topology() != topology) {
+                state = new CandidateState(topology);
+            }
+            return state;
+        }
+    }
+
+    private final class SearchTask extends RecursiveAction {
+        private final Search search;
+        private final int[] values;
+        private final int depth;
+
+        /**
+         * @param values the values to start from, or null to start from the root state of the search
+         */
+        private SearchTask(Search search, int[] values, int depth) {
+            this.search = search;
+            this.values = values;
+            this.depth = depth;
+        }
+
+        @Override protected void compute() {
+            if (search.isFinished()) {
+                return;
+            }
+            Worker worker = workers.get();
+            CandidateState state = worker.stateFor(search.root.topology());
+            if (values == null) {
+                state.copyFrom(search.root);
+            } else if (!state.load(values)) {
+                return;
+            }
+            if (!isWorthSplitting(state)) {
+                boolean solved = worker.solver.solve(state, search::isFinished);
+                nodes.add(worker.solver.nodes());
+                if (solved) {
+                    search.offer(state);
+                }
+                return;
+            }
+            if (!worker.propagator.propagate(state)) {
+                return;
+            }
+            int cell = state.mostConstrainedCell();
+            if (cell < 0) {
+                search.offer(state);
+                return;
+            }
+            List<SearchTask> children = new ArrayList<>(Candidates.count(state.candidates(cell)));
+            int mark = state.mark();
+            for (int options = state.candidates(cell); options != 0; options &= options - 1) {
+                if (state.place(cell, Candidates.lowestValue(options))) {
+                    int[] child = new int[state.topology().size()];
+                    state.copyValuesTo(child);
+                    children.add(new SearchTask(search, child, depth + 1));
+                }
+                state.rollback(mark);
+            }
+            nodes.add(children.size());
+            invokeAll(children);
+        }
+
+        private boolean isWorthSplitting(CandidateState state) {
+            return depth < splitDepth && state.emptyCells() * 4 > state.topology().size();
+        }
+    }
+
+}
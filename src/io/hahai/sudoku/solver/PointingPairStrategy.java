@@ -0,0 +1,50 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.Candidates;
+import io.hahai.sudoku.grid.GridTopology;
+
+/**
+ * When every candidate for a value inside a block lies on one row or column, that value is removed from the
+ * rest of the row or column outside the block.
+ */
+public final class PointingPairStrategy implements PropagationStrategy {
+
+    @Override public boolean apply(CandidateState state) {
+        boolean progress = false;
+        GridTopology topology = state.topology();
+        int dimension = topology.dimension();
+        for (int block = 0; block < dimension && !state.isContradicted(); block++) {
+            int[] cells = topology.block(block);
+            for (int value = 1; value <= dimension; value++) {
+                int row = -1;
+                int column = -1;
+                boolean found = false;
+                for (int cell : cells) {
+                    if (Candidates.contains(state.candidates(cell), value)) {
+                        row = !found || row == topology.rowOf(cell) ? topology.rowOf(cell) : -2;
+                        column = !found || column == topology.columnOf(cell) ? topology.columnOf(cell) : -2;
+                        found = true;
+                    }
+                }
+                if (row >= 0) {
+                    progress |= eliminateOutsideBlock(state, topology.row(row), block, value);
+                }
+                if (column >= 0) {
+                    progress |= eliminateOutsideBlock(state, topology.column(column), block, value);
+                }
+            }
+        }
+        return progress;
+    }
+
+    private boolean eliminateOutsideBlock(CandidateState state, int[] line, int block, int value) {
+        boolean progress = false;
+        for (int cell : line) {
+            if (state.topology().blockOf(cell) != block) {
+                progress |= state.eliminate(cell, Candidates.bitFor(value));
+            }
+        }
+        return progress;
+    }
+
+}
@@ -0,0 +1,40 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.grid.GridTopology;
+
+/**
+ * Plays every value that constraint propagation alone can deduce, without guessing.
+ */
+public final class PropagatingSolver implements Solver {
+
+    private final ConstraintPropagator propagator;
+    private CandidateState state;
+
+    public PropagatingSolver() {
+        this(ConstraintPropagator.standard());
+    }
+
+    public PropagatingSolver(ConstraintPropagator propagator) {
+        this.propagator = propagator;
+    }
+
+    @Override public void attemptSolve(Grid grid) {
+        CandidateState state = stateFor(grid.topology());
+        if (state.load(grid) && propagator.propagate(state)) {
+            for (int i = 0; i < grid.size(); i++) {
+                if (grid.getValueAt(i) == 0 && state.value(i) != 0) {
+                    grid.play(i, state.value(i));
+                }
+            }
+        }
+    }
+
+    private CandidateState stateFor(GridTopology topology) {
+        if (state == null || state.topology() != topology) {
+            state = new CandidateState(topology);
+        }
+        return state;
+    }
+
+}
@@ -0,0 +1,13 @@
+package io.hahai.sudoku.solver;
+
+/**
+ * One logical deduction run over a shared {@link CandidateState}.
+ */
+public interface PropagationStrategy {
+
+    /**
+     * @return true when a value was placed or a candidate removed
+     */
+    boolean apply(CandidateState state);
+
+}
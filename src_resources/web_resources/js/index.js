@@ -83,6 +83,11 @@ var SudokuController = (function () {
             "success": function (data) {
                 playReply(data);
             },
+            "error": function (xhr) {
+                if (xhr.status === 410 || xhr.status === 404) {
+                    window.location.reload();
+                }
+            },
             "dataType": "json",
             "contentType": "application/json"
         });
@@ -102,12 +107,16 @@ var SudokuController = (function () {
             removeValueAt(index);
         }
     };
-    var init = function init(targetDiv) {
+    var init = function init(targetDiv, retried) {
         $.getJSON("/v1/sudoku/grid", function (data) {
             data.forEach(function (element, index, data) {
                 SudokuModel.add(index, element);
             });
             SudokuModel.accept(SudokuView.paintGridVisitor(targetDiv))
+        }).fail(function (xhr) {
+            if (xhr.status === 410 && !retried) {
+                init(targetDiv, true);
+            }
         });
     };
     return {
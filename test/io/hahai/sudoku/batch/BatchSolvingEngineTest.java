@@ -0,0 +1,97 @@
+package io.hahai.sudoku.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public final class BatchSolvingEngineTest {
+
+    private static final String EASY = "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+    private static final String SOLVED_EASY = "483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+    private static final String HARD = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+    private static final String SOLVED_HARD = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+    private static final String UNSOLVABLE = ".123456789........................................................................";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test public void solvesEveryLineInInputOrder() throws Exception {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            input.append(i % 2 == 0 ? EASY : HARD).append("\r\n");
+            expected.append(i % 2 == 0 ? SOLVED_EASY : SOLVED_HARD).append('\n');
+        }
+        StringWriter output = new StringWriter();
+        try (BatchSolvingEngine unit = new BatchSolvingEngine(3, 7)) {
+            BatchReport report = unit.solve(new StringReader(input.toString()), output);
+            assertThat(report.puzzles(), is(50L));
+            assertThat(report.solved(), is(50L));
+        }
+        assertThat(output.toString(), is(expected.toString()));
+    }
+
+    @Test public void writesUnsolvableAndMalformedLinesBack() throws Exception {
+        String input = EASY + "\n\n" + UNSOLVABLE + "\nnot a puzzle\n" + HARD;
+        StringWriter output = new StringWriter();
+        try (BatchSolvingEngine unit = new BatchSolvingEngine(2)) {
+            BatchReport report = unit.solve(new StringReader(input), output);
+            assertThat(report.puzzles(), is(4L));
+            assertThat(report.solved(), is(2L));
+        }
+        assertThat(output.toString(), is(SOLVED_EASY + "\n" + UNSOLVABLE + "\nnot a puzzle\n" + SOLVED_HARD + "\n"));
+    }
+
+    @Test public void passesALeadingCommentThroughAndSolvesThePuzzlesAfterIt() throws Exception {
+        String input = "# header\n" + "not a puzzle\n" + EASY + "\n" + HARD + "\n";
+        String expected = "# header\n" + "not a puzzle\n" + SOLVED_EASY + "\n" + SOLVED_HARD + "\n";
+        StringWriter output = new StringWriter();
+        try (BatchSolvingEngine unit = new BatchSolvingEngine(2)) {
+            assertThat(unit.solve(new StringReader(input), output).solved(), is(2L));
+        }
+        assertThat(output.toString(), is(expected));
+
+        ByteArrayOutputStream mapped = new ByteArrayOutputStream();
+        try (BatchSolvingEngine unit = new BatchSolvingEngine(2)) {
+            assertThat(unit.solve(write(input), mapped).solved(), is(2L));
+        }
+        assertThat(new String(mapped.toByteArray(), StandardCharsets.US_ASCII), is(expected));
+    }
+
+    @Test public void passesAFileWithoutPuzzlesThrough() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (BatchSolvingEngine unit = new BatchSolvingEngine(2)) {
+            BatchReport report = unit.solve(write("# header\nno puzzles here\n"), output);
+            assertThat(report.puzzles(), is(2L));
+            assertThat(report.solved(), is(0L));
+        }
+        assertThat(new String(output.toByteArray(), StandardCharsets.US_ASCII), is("# header\nno puzzles here\n"));
+    }
+
+    @Test(timeout = 5000) public void copiesAFileOfBlankLinesThrough() throws Exception {
+        Path file = write("\n\r\n\n");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (BatchSolvingEngine unit = new BatchSolvingEngine(2)) {
+            BatchReport report = unit.solve(file, output);
+            assertThat(report.puzzles(), is(0L));
+            assertThat(report.solved(), is(0L));
+        }
+        assertThat(new String(output.toByteArray(), StandardCharsets.US_ASCII), is("\n\r\n\n"));
+    }
+
+    private Path write(String content) throws Exception {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+}
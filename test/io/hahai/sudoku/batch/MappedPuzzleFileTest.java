@@ -0,0 +1,83 @@
+package io.hahai.sudoku.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public final class MappedPuzzleFileTest {
+
+    private static final String EASY = "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+    private static final String SOLVED_EASY = "483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+    private static final String HARD = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+    private static final String SOLVED_HARD = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test public void splitsIntoLineAlignedChunks() throws Exception {
+        Path file = write(EASY + "\n" + HARD + "\n" + EASY);
+        try (MappedPuzzleFile unit = MappedPuzzleFile.open(file, 100)) {
+            assertThat(unit.chunks().size(), is(3));
+            for (PuzzleChunk chunk : unit.chunks()) {
+                assertThat(chunk.contentLength(0, chunk.lineEnd(0)), is(81));
+            }
+            assertThat(unit.chunks().get(1).fileOffset(), is(82L));
+            assertThat(unit.chunks().get(2).size(), is(81));
+        }
+    }
+
+    @Test public void engineSolvesMappedFileInOrder() throws Exception {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            input.append(i % 3 == 0 ? HARD : EASY).append(i % 2 == 0 ? "\r\n" : "\n");
+            expected.append(i % 3 == 0 ? SOLVED_HARD : SOLVED_EASY).append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        Path file = write(input.toString());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (BatchSolvingEngine unit = new BatchSolvingEngine(3)) {
+            BatchReport report = unit.solve(file, output);
+            assertThat(report.puzzles(), is(200L));
+            assertThat(report.solved(), is(200L));
+        }
+        assertThat(new String(output.toByteArray(), StandardCharsets.US_ASCII), is(expected.toString()));
+    }
+
+    @Test public void sizesChunksForTheWorkers() {
+        assertThat(MappedPuzzleFile.chunkBytesFor(100, 4), is(MappedPuzzleFile.MIN_CHUNK_BYTES));
+        assertThat(MappedPuzzleFile.chunkBytesFor(16 << 20, 4), is(1 << 20));
+        assertThat(MappedPuzzleFile.chunkBytesFor(1L << 40, 2), is(MappedPuzzleFile.DEFAULT_CHUNK_BYTES));
+    }
+
+    @Test public void engineReusesBuffersAcrossManyChunks() throws Exception {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 6000; i++) {
+            input.append(EASY).append('\n');
+            expected.append(SOLVED_EASY).append('\n');
+        }
+        Path file = write(input.toString());
+        try (MappedPuzzleFile mapped = MappedPuzzleFile.openForWorkers(file, 1)) {
+            assertThat(mapped.chunks().size() > 2, is(true));
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (BatchSolvingEngine unit = new BatchSolvingEngine(1)) {
+            assertThat(unit.solve(file, output).solved(), is(6000L));
+        }
+        assertThat(new String(output.toByteArray(), StandardCharsets.US_ASCII), is(expected.toString()));
+    }
+
+    private Path write(String content) throws Exception {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+}
@@ -0,0 +1,173 @@
+package io.hahai.sudoku.canonical;
+
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.grid.GridTopology;
+import io.hahai.sudoku.solver.BacktrackingSolver;
+import io.hahai.sudoku.solver.ConstraintPropagator;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+public final class CanonicalizerTest {
+
+    private static final String HARD =
+            "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..";
+    private static final String OTHER =
+            ".6..29....2..6..8...73..5..25.8.....1.9...7.8.....5.23..5..29...9..5..7....98..4.";
+    private static final String SYMMETRIC =
+            "123456789456789123789123456231564897564897231897231564312645978645978312978312645";
+    private static final String EMPTY = String.join("", Collections.nCopies(81, "."));
+
+    private final GridTopology topology = GridTopology.forDimension(9);
+
+    @Test public void equivalentPuzzlesShareACanonicalForm() {
+        Canonicalizer unit = new Canonicalizer(topology);
+        String expected = unit.canonicalize(valuesOf(HARD)).key();
+        Random random = new Random(3);
+        for (int i = 0; i < 20; i++) {
+            int[] shuffled = new int[81];
+            randomTransform(random).apply(valuesOf(HARD), shuffled);
+            assertThat(unit.canonicalize(shuffled).key(), is(expected));
+        }
+        assertThat(unit.canonicalize(valuesOf(OTHER)).key(), is(not(expected)));
+    }
+
+    @Test public void theTransformMapsThePuzzleOntoItsCanonicalForm() {
+        CanonicalForm form = new Canonicalizer(topology).canonicalize(valuesOf(OTHER));
+        int[] canonical = new int[81];
+        form.transform().apply(valuesOf(OTHER), canonical);
+        assertThat(canonical, is(form.values()));
+        int[] restored = new int[81];
+        form.transform().restore(canonical, restored);
+        assertThat(restored, is(valuesOf(OTHER)));
+        assertThat(form.key().startsWith("000000"), is(true));
+    }
+
+    @Test(timeout = 5000) public void emptyAndOneCluePuzzlesDoNotBlowUp() throws Exception {
+        Canonicalizer unit = new Canonicalizer(topology);
+        CanonicalForm empty = unit.canonicalize(new int[81]);
+        assertThat(empty.values(), is(new int[81]));
+        assertThat(empty.isExact(), is(true));
+        String expected = null;
+        for (int cell = 0; cell < 81; cell++) {
+            int[] values = new int[81];
+            values[cell] = 1 + cell % 9;
+            CanonicalForm form = unit.canonicalize(values);
+            assertThat(form.isExact(), is(true));
+            expected = expected == null ? form.key() : expected;
+            assertThat(form.key(), is(expected));
+        }
+        StringWriter out = new StringWriter();
+        try (PuzzleDeduplicator dedupe = new PuzzleDeduplicator(topology, 1)) {
+            assertThat(dedupe.dedupe(new StringReader(EMPTY + "\n" + EMPTY + "\n"), out), is(1L));
+        }
+    }
+
+    @Test(timeout = 5000) public void aFullySymmetricGridSettlesOnOneForm() {
+        Canonicalizer unit = new Canonicalizer(topology);
+        CanonicalForm form = unit.canonicalize(valuesOf(SYMMETRIC));
+        assertThat(form.isExact(), is(true));
+        int[] restored = new int[81];
+        form.transform().restore(form.values(), restored);
+        assertThat(restored, is(valuesOf(SYMMETRIC)));
+        Random random = new Random(13);
+        for (int i = 0; i < 20; i++) {
+            int[] shuffled = new int[81];
+            randomTransform(random).apply(valuesOf(SYMMETRIC), shuffled);
+            assertThat(unit.canonicalize(shuffled).key(), is(form.key()));
+        }
+    }
+
+    @Test public void cachedSolutionsAnswerEquivalentPuzzles() {
+        SolutionCache cache = new SolutionCache(100);
+        CachingSolver unit = new CachingSolver(new BacktrackingSolver(ConstraintPropagator.standard()), cache);
+        Grid first = new Grid(new StringReader(HARD));
+        unit.attemptSolve(first);
+        assertThat(first.isGridCompleteAndCorrect(), is(true));
+        assertThat(cache.misses(), is(1L));
+
+        int[] shuffled = new int[81];
+        randomTransform(new Random(11)).apply(valuesOf(HARD), shuffled);
+        Grid second = new Grid(new StringReader(lineOf(shuffled)));
+        unit.attemptSolve(second);
+        assertThat(second.isGridCompleteAndCorrect(), is(true));
+        assertThat(cache.hits(), is(1L));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test public void evictsTheLeastRecentlyUsedSolution() {
+        SolutionCache unit = new SolutionCache(1);
+        unit.put("a", new int[]{1});
+        unit.put("b", new int[]{2});
+        assertThat(unit.get("a") == null, is(true));
+        assertThat(unit.get("b")[0], is(2));
+        assertThat(unit.evictions(), is(1L));
+    }
+
+    @Test public void theFormSetHoldsEachCanonicalGridOnce() {
+        CanonicalFormSet unit = new CanonicalFormSet(topology, 1);
+        Canonicalizer canonicalizer = new Canonicalizer(topology);
+        int[] canonical = new int[81];
+        Random random = new Random(5);
+        for (int i = 0; i < 100; i++) {
+            int[] shuffled = new int[81];
+            randomTransform(random).apply(valuesOf(i % 2 == 0 ? HARD : OTHER), shuffled);
+            canonicalizer.canonicalValues(shuffled, canonical);
+            assertThat(unit.add(canonical), is(i < 2));
+        }
+        assertThat(unit.add(new int[81]), is(true));
+        assertThat(unit.contains(new int[81]), is(true));
+        assertThat(unit.size(), is(3));
+    }
+
+    @Test public void dedupeKeepsTheFirstOfEachFamilyInOrder() throws Exception {
+        int[] shuffled = new int[81];
+        randomTransform(new Random(7)).apply(valuesOf(OTHER), shuffled);
+        String input = HARD + "\n" + OTHER + "\nnot a puzzle\n\n" + lineOf(shuffled) + "\n" + HARD + "\n";
+        StringWriter out = new StringWriter();
+        try (PuzzleDeduplicator unit = new PuzzleDeduplicator(topology, 2)) {
+            assertThat(unit.dedupe(new StringReader(input), out), is(2L));
+            assertThat(unit.distinct(), is(2));
+        }
+        assertThat(out.toString(), is(HARD + "\n" + OTHER + "\n"));
+    }
+
+    private static PuzzleTransform randomTransform(Random random) {
+        int[][] orders = ColumnOrders.bandPreservingOrders(3);
+        int[] labels = new int[10];
+        for (int digit = 1; digit <= 9; digit++) {
+            labels[digit] = digit;
+        }
+        for (int i = 9; i > 1; i--) {
+            int j = 1 + random.nextInt(i);
+            int swap = labels[i];
+            labels[i] = labels[j];
+            labels[j] = swap;
+        }
+        return new PuzzleTransform(random.nextBoolean(), orders[random.nextInt(orders.length)], orders[random.nextInt(orders.length)], labels);
+    }
+
+    private static int[] valuesOf(String line) {
+        int[] values = new int[line.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = line.charAt(i) == '.' ? 0 : line.charAt(i) - '0';
+        }
+        return values;
+    }
+
+    private static String lineOf(int[] values) {
+        StringBuilder builder = new StringBuilder();
+        for (int value : values) {
+            builder.append(value == 0 ? '.' : (char) ('0' + value));
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,100 @@
+package io.hahai.sudoku.codec;
+
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.grid.GridTopology;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public final class GridCodecTest {
+
+    private static final String HARD =
+            "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..";
+
+    @Test public void packsANineByNinePuzzleIntoFiftyFourBytes() {
+        GridCodec unit = new GridCodec(GridTopology.forDimension(9));
+        ByteBuffer buffer = ByteBuffer.allocate(unit.encodedSize());
+        unit.encode(valuesOf(HARD), buffer);
+        assertThat(buffer.position(), is(54));
+
+        buffer.flip();
+        assertThat(GridCodec.dimensionOf(buffer), is(9));
+        int[] decoded = new int[81];
+        unit.decode(buffer, decoded);
+        assertThat(decoded, is(valuesOf(HARD)));
+        assertThat(buffer.hasRemaining(), is(false));
+    }
+
+    @Test public void keepsPresetsAndPlayedCellsApart() {
+        Grid grid = new Grid(new StringReader(HARD));
+        grid.play(1, 1);
+        GridCodec unit = new GridCodec(GridTopology.forDimension(9));
+        ByteBuffer buffer = ByteBuffer.allocate(unit.encodedSize());
+        unit.encode(grid, buffer);
+        buffer.flip();
+
+        Grid decoded = unit.decode(buffer);
+        for (int i = 0; i < 81; i++) {
+            assertThat(decoded.getValueAt(i), is(grid.getValueAt(i)));
+            assertThat(decoded.cellPlayable(i), is(grid.cellPlayable(i)));
+        }
+        assertThat(decoded.cellPlayable(1), is(true));
+        assertThat(decoded.isGridInitialisedCorrectly(), is(true));
+    }
+
+    @Test public void streamsRecordsOfLargerGridsThroughOneBuffer() {
+        GridCodec unit = new GridCodec(GridTopology.forDimension(16));
+        assertThat(unit.encodedSize(), is(2 + 32 + 160));
+        Random random = new Random(1);
+        int[][] puzzles = new int[10][256];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(puzzles.length * unit.encodedSize());
+        for (int[] puzzle : puzzles) {
+            for (int i = 0; i < puzzle.length; i++) {
+                puzzle[i] = random.nextInt(17);
+            }
+            unit.encode(puzzle, buffer);
+        }
+        buffer.flip();
+        int[] decoded = new int[256];
+        for (int[] puzzle : puzzles) {
+            unit.decode(buffer, decoded);
+            assertThat(decoded, is(puzzle));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void refusesARecordOfAnotherDimension() {
+        GridCodec fourByFour = new GridCodec(GridTopology.forDimension(4));
+        ByteBuffer buffer = ByteBuffer.allocate(fourByFour.encodedSize());
+        fourByFour.encode(new int[16], buffer);
+        buffer.flip();
+        new GridCodec(GridTopology.forDimension(9)).decode(buffer);
+    }
+
+    @Test public void writesNothingWhenAValueIsOutOfRange() {
+        GridCodec unit = new GridCodec(GridTopology.forDimension(4));
+        ByteBuffer buffer = ByteBuffer.allocate(unit.encodedSize());
+        int[] values = new int[16];
+        values[15] = 5;
+        try {
+            unit.encode(values, buffer);
+        } catch (IllegalArgumentException expected) {
+            assertThat(buffer.position(), is(0));
+            return;
+        }
+        throw new AssertionError("Expected the value 5 to be refused");
+    }
+
+    private static int[] valuesOf(String line) {
+        int[] values = new int[line.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = line.charAt(i) == '.' ? 0 : line.charAt(i) - '0';
+        }
+        return values;
+    }
+
+}
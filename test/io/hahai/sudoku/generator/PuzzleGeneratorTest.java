@@ -0,0 +1,76 @@
+package io.hahai.sudoku.generator;
+
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.grid.GridTopology;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public final class PuzzleGeneratorTest {
+
+    @Test public void generatesAPuzzleWithOneSolutionThatGridCanRead() {
+        GridTopology topology = GridTopology.forDimension(9);
+        PuzzleGenerator unit = new PuzzleGenerator(topology, Symmetry.NONE, 42);
+        int[] puzzle = unit.generate();
+        Grid grid = new Grid(new StringReader(PuzzleText.boxed(topology, puzzle)));
+        assertThat(grid.isGridInitialisedCorrectly(), is(true));
+        assertThat(grid.hasUniqueSolution(), is(true));
+        assertThat(grid.playableCells().size(), lessThan(81));
+        int[] solution = unit.solution();
+        for (int cell = 0; cell < puzzle.length; cell++) {
+            if (puzzle[cell] != 0) {
+                assertThat(puzzle[cell], is(solution[cell]));
+            }
+        }
+    }
+
+    @Test public void keepsTheGivensSymmetric() {
+        GridTopology topology = GridTopology.forDimension(9);
+        int[] rotational = new PuzzleGenerator(topology, Symmetry.ROTATIONAL, 7).generate();
+        int[] diagonal = new PuzzleGenerator(topology, Symmetry.DIAGONAL, 7).generate();
+        for (int row = 0; row < 9; row++) {
+            for (int column = 0; column < 9; column++) {
+                assertThat(rotational[row * 9 + column] == 0, is(rotational[(8 - row) * 9 + (8 - column)] == 0));
+                assertThat(diagonal[row * 9 + column] == 0, is(diagonal[column * 9 + row] == 0));
+            }
+        }
+    }
+
+    @Test public void generatesInParallelOneLinePerPuzzle() throws Exception {
+        GridTopology topology = GridTopology.forDimension(9);
+        StringWriter out = new StringWriter();
+        try (ParallelPuzzleGenerator unit = new ParallelPuzzleGenerator(topology, Symmetry.QUARTER_TURN, 2, 1)) {
+            unit.generate(6, out);
+            List<int[]> puzzles = unit.generate(2);
+            assertThat(puzzles.size(), is(2));
+        }
+        String[] lines = out.toString().split("\n");
+        assertThat(lines.length, is(6));
+        for (String line : lines) {
+            assertThat(line.length(), is(81));
+            assertThat(new Grid(new StringReader(line)).hasUniqueSolution(), is(true));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void largeGridsHaveNoTextForm() {
+        PuzzleText.line(GridTopology.forDimension(16), new int[256]);
+    }
+
+    @Test(timeout = 5000) public void largeGridsAreRefusedBeforeAnyIsGenerated() throws Exception {
+        StringWriter out = new StringWriter();
+        try (ParallelPuzzleGenerator unit = new ParallelPuzzleGenerator(GridTopology.forDimension(16), Symmetry.NONE, 1, 1)) {
+            unit.generate(1_000, out);
+            throw new AssertionError("Expected 16x16 grids to have no text form");
+        } catch (IllegalArgumentException expected) {
+            assertThat(out.toString(), is(""));
+        }
+    }
+
+}
@@ -4,6 +4,7 @@ import org.junit.Test;
 
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
@@ -195,6 +196,226 @@ public final class GridTest {
         unit.play(0, 3);
     }
 
+    @Test public void playReportsOnlyTheCellsItChanged() {
+        String grid =
+                " . 1 4 2 6 8 7 5 ." +
+                " 5 8 2 1 7 9 4 3 6" +
+                " 6 7 9 3 4 5 1 2 8" +
+                " 1 2 7 8 3 4 9 6 5" +
+                " 4 5 6 9 2 1 3 8 7" +
+                " 8 9 3 6 5 7 2 1 4" +
+                " 2 3 8 4 9 6 5 7 1" +
+                " . 6 5 7 1 2 8 4 3" +
+                " 7 4 1 5 8 3 6 9 2";
+        Grid unit = new Grid(new StringReader(grid));
+        long version = unit.version();
+        List<Cell> changed = unit.play(0, 1);
+        assertThat(indexesOf(changed), containsInAnyOrder(0, 1, 27));
+        assertThat(changed.get(0).getIndex(), is(0));
+        assertThat(changed.get(0).isValid(), is(false));
+        changed = unit.play(0, 3);
+        assertThat(indexesOf(changed), containsInAnyOrder(0, 1, 27));
+        assertThat(changed.get(1).isValid(), is(true));
+        assertThat(unit.play(0, 3).size(), is(0));
+        assertThat(unit.version(), is(version + 3));
+    }
+
+    @Test public void undoAndRedoRestoreValuesPresetsAndValidity() {
+        String grid =
+                " . 1 4 2 6 8 7 5 ." +
+                " 5 8 2 1 7 9 4 3 6" +
+                " 6 7 9 3 4 5 1 2 8" +
+                " 1 2 7 8 3 4 9 6 5" +
+                " 4 5 6 9 2 1 3 8 7" +
+                " 8 9 3 6 5 7 2 1 4" +
+                " 2 3 8 4 9 6 5 7 1" +
+                " . 6 5 7 1 2 8 4 3" +
+                " 7 4 1 5 8 3 6 9 2";
+        Grid unit = new Grid(new StringReader(grid));
+        unit.keepMoves(true);
+        unit.play(0, 1);
+        unit.play(1, 3);
+        assertThat(unit.isGridInitialisedCorrectly(), is(false));
+
+        assertThat(unit.undo(), is(1));
+        assertThat(unit.getValueAt(1), is(1));
+        assertThat(unit.cellPlayable(1), is(false));
+        assertThat(unit.undo(), is(0));
+        assertThat(unit.getValueAt(0), is(0));
+        assertThat(unit.isGridInitialisedCorrectly(), is(true));
+        assertThat(unit.undo(), is(-1));
+
+        assertThat(unit.redo(), is(0));
+        assertThat(unit.getValueAt(0), is(1));
+        assertThat(unit.isGridInitialisedCorrectly(), is(false));
+        unit.play(0, 3);
+        assertThat(unit.redo(), is(-1));
+        unit.play(63, 9);
+        unit.play(8, 9);
+        assertThat(unit.isGridCompleteAndCorrect(), is(true));
+    }
+
+    @Test public void rollsBackToAMark() {
+        Grid unit = new Grid(Grid.defaultGameReader());
+        unit.keepMoves(true);
+        unit.play(0, 3);
+        int mark = unit.mark();
+        unit.play(8, 9);
+        unit.play(0, 5);
+        unit.play(8, 1);
+        unit.rollbackTo(mark);
+        assertThat(unit.getValueAt(0), is(3));
+        assertThat(unit.getValueAt(8), is(0));
+        assertThat(unit.cellPlayable(8), is(true));
+        assertThat(unit.mark(), is(mark));
+    }
+
+    @Test public void keepsMovesOnlyWhenAskedAndOnlyTheLatest() {
+        Grid unit = new Grid(Grid.defaultGameReader());
+        unit.play(0, 3);
+        assertThat(unit.undo(), is(-1));
+        assertThat(unit.getValueAt(0), is(3));
+
+        unit.keepMoves(true);
+        int first = unit.mark();
+        for (int move = 0; move < MoveJournal.LIMIT + 10; move++) {
+            unit.play(0, 1 + move % 9);
+        }
+        int undone = 0;
+        while (unit.undo() != -1) {
+            undone++;
+        }
+        assertThat(undone <= MoveJournal.LIMIT, is(true));
+        assertThat(unit.getValueAt(0) != 3, is(true));
+        try {
+            unit.rollbackTo(first);
+            throw new AssertionError("Expected a mark older than the moves kept to be refused");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        unit.keepMoves(false);
+        unit.play(0, 4);
+        assertThat(unit.undo(), is(-1));
+    }
+
+    @Test public void presetAndValidityBitsFollowTheText() {
+        String grid =
+                " 1 1 . ." +
+                " . . . ." +
+                " . . . 2" +
+                " . . . ."
+                ;
+        Grid unit = new Grid(new StringReader(grid));
+        List<Cell> cells = cellsOf(unit);
+        assertThat(cells.get(0).getState(), is(Grid.CellState.PRESET));
+        assertThat(cells.get(0).isValid(), is(false));
+        assertThat(cells.get(1).isValid(), is(false));
+        assertThat(cells.get(2).getState(), is(Grid.CellState.PLAYABLE));
+        assertThat(cells.get(2).getValue(), is(0));
+        assertThat(cells.get(2).isValid(), is(true));
+        assertThat(cells.get(11).getState(), is(Grid.CellState.PRESET));
+        assertThat(cells.get(11).getValue(), is(2));
+        assertThat(cells.get(11).isValid(), is(true));
+        assertThat(unit.playableCells().size(), is(13));
+        assertThat(unit.isGridInitialisedCorrectly(), is(false));
+    }
+
+    @Test public void cellViewsFollowAPlay() {
+        String grid =
+                " 1 2 . ." +
+                " . . . ." +
+                " . . . ." +
+                " . . . ."
+                ;
+        Grid unit = new Grid(new StringReader(grid));
+        assertThat(indexesOf(unit.play(2, 1)), containsInAnyOrder(0, 2));
+        List<Cell> cells = cellsOf(unit);
+        assertThat(cells.get(0).getState(), is(Grid.CellState.PRESET));
+        assertThat(cells.get(0).isValid(), is(false));
+        assertThat(cells.get(2).getState(), is(Grid.CellState.PLAYABLE));
+        assertThat(cells.get(2).getValue(), is(1));
+        assertThat(cells.get(2).isValid(), is(false));
+
+        unit.play(2, 3);
+        cells = cellsOf(unit);
+        assertThat(cells.get(0).isValid(), is(true));
+        assertThat(cells.get(2).getValue(), is(3));
+        assertThat(cells.get(2).isValid(), is(true));
+        assertThat(unit.playableCells().get(0).getIndex(), is(2));
+        assertThat(unit.playableCells().get(0).getValue(), is(3));
+    }
+
+    @Test public void cellViewsFollowAResetWith() {
+        String first =
+                " 1 2 . ." +
+                " . . . ." +
+                " . . . ." +
+                " . . . ."
+                ;
+        String second =
+                " . . 3 3" +
+                " . . . ." +
+                " . . . ." +
+                " . . . 4"
+                ;
+        Grid unit = new Grid(new StringReader(first));
+        unit.keepMoves(true);
+        unit.play(2, 2);
+        long version = unit.version();
+        unit.resetWith(new StringReader(second));
+        assertThat(unit.version(), is(version + 1));
+        assertThat(unit.undo(), is(-1));
+        List<Cell> cells = cellsOf(unit);
+        assertThat(cells.get(0).getState(), is(Grid.CellState.PLAYABLE));
+        assertThat(cells.get(0).getValue(), is(0));
+        assertThat(cells.get(0).isValid(), is(true));
+        assertThat(cells.get(1).isValid(), is(true));
+        assertThat(cells.get(2).getState(), is(Grid.CellState.PRESET));
+        assertThat(cells.get(2).isValid(), is(false));
+        assertThat(cells.get(3).isValid(), is(false));
+        assertThat(cells.get(15).getValue(), is(4));
+        assertThat(cells.get(15).isValid(), is(true));
+        assertThat(unit.playableCells().size(), is(13));
+    }
+
+    @Test public void aSixteenBySixteenGridTracksCandidatesAndValidity() {
+        GridTopology topology = GridTopology.forDimension(16);
+        int[] values = new int[256];
+        BitSet presets = new BitSet();
+        values[0] = 16;
+        values[17] = 5;
+        presets.set(0);
+        presets.set(17);
+        Grid unit = new Grid(topology, values, presets);
+        assertThat(unit.dimension(), is(16));
+        assertThat(unit.isGridInitialisedCorrectly(), is(true));
+        assertThat(unit.playableCells().size(), is(254));
+        assertThat(unit.candidateCount(1), is(14));
+        assertThat(unit.playableOptions(1).contains(16), is(false));
+        assertThat(unit.playableOptions(1).contains(5), is(false));
+        assertThat(unit.candidateCount(20), is(15));
+
+        assertThat(indexesOf(unit.play(15, 16)), containsInAnyOrder(15, 0));
+        assertThat(cellsOf(unit).get(0).isValid(), is(false));
+        assertThat(unit.isGridInitialisedCorrectly(), is(false));
+        unit.play(15, 0);
+        assertThat(cellsOf(unit).get(0).isValid(), is(true));
+        assertThat(cellsOf(unit).get(15).getState(), is(Grid.CellState.PLAYABLE));
+        assertThat(unit.isGridCompleteAndCorrect(), is(false));
+    }
+
+    private static List<Cell> cellsOf(Grid grid) {
+        List<Cell> reply = new ArrayList<>();
+        grid.accept(reply::add);
+        return reply;
+    }
+
+    private static List<Integer> indexesOf(List<Cell> cells) {
+        List<Integer> reply = new ArrayList<>();
+        cells.forEach(cell -> reply.add(cell.getIndex()));
+        return reply;
+    }
+
     @Test public void canPlayWhenValueIsInOptions() {
         String grid =
                 " . 1 4 2 6 8 7 5 ." +
@@ -719,4 +940,86 @@ public final class GridTest {
         assertThat(playableOptions, containsInAnyOrder(3));
     }
 
+    @Test public void candidateMaskMatchesPlayableOptions() {
+        String grid =
+                " . 1 4 2 6 8 7 5 ." +
+                " 5 8 2 1 7 9 4 3 6" +
+                " 6 7 . 3 4 5 1 2 8" +
+                " 1 2 7 8 3 4 9 6 5" +
+                " 4 5 6 9 2 1 3 8 7" +
+                " 8 9 3 6 5 7 2 1 4" +
+                " 2 3 8 4 9 6 5 7 1" +
+                " . 6 5 7 1 2 8 4 3" +
+                " 7 4 1 5 8 3 6 9 2";
+        final StringReader reader = new StringReader(grid);
+        Grid unit = new Grid(reader);
+        assertThat(unit.candidateMask(0), is(Candidates.bitFor(3) | Candidates.bitFor(9)));
+        assertThat(unit.candidateCount(0), is(2));
+        assertThat(unit.candidateCount(8), is(1));
+        assertThat(unit.candidateMask(1), is(0));
+
+        unit.play(0, 9);
+        assertThat(unit.candidateMask(8), is(0));
+        assertThat(unit.candidateMask(0), is(Candidates.bitFor(3)));
+        unit.play(0, 0);
+        assertThat(unit.candidateMask(8), is(Candidates.bitFor(9)));
+    }
+
+    @Test public void candidateMaskSurvivesRepeatedValueBeingCleared() {
+        String grid =
+                " . 1 4 2 6 8 7 5 ." +
+                " 5 8 2 1 7 9 4 3 6" +
+                " 6 7 9 3 4 5 1 2 8" +
+                " 1 2 7 8 3 4 9 6 5" +
+                " 4 5 6 9 2 1 3 8 7" +
+                " 8 9 3 6 5 7 2 1 4" +
+                " 2 3 8 4 9 6 5 7 1" +
+                " 9 6 5 7 1 2 8 4 3" +
+                " 7 4 1 5 8 3 6 9 2";
+        final StringReader reader = new StringReader(grid);
+        Grid unit = new Grid(reader);
+        unit.play(0, 1);
+        unit.play(8, 1);
+        unit.play(8, 0);
+        assertThat(unit.candidateMask(8), is(Candidates.bitFor(9)));
+    }
+
+    @Test public void clearingARepeatRevalidatesItsPeers() {
+        String grid =
+                " . 1 4 2 6 8 7 5 ." +
+                " 5 8 2 1 7 9 4 3 6" +
+                " 6 7 9 3 4 5 1 2 8" +
+                " 1 2 7 8 3 4 9 6 5" +
+                " 4 5 6 9 2 1 3 8 7" +
+                " 8 9 3 6 5 7 2 1 4" +
+                " 2 3 8 4 9 6 5 7 1" +
+                " 9 6 5 7 1 2 8 4 3" +
+                " 7 4 1 5 8 3 6 9 2";
+        final StringReader reader = new StringReader(grid);
+        Grid unit = new Grid(reader);
+        unit.play(0, 9);
+        unit.play(8, 9);
+        assertThat(unit.playableCells().get(0).isValid(), is(false));
+        assertThat(unit.playableCells().get(1).isValid(), is(false));
+        assertThat(unit.isGridCompleteAndCorrect(), is(false));
+        unit.play(0, 0);
+        assertThat(unit.playableCells().get(0).isValid(), is(true));
+        assertThat(unit.playableCells().get(1).isValid(), is(true));
+        assertThat(unit.isGridCompleteAndCorrect(), is(false));
+        unit.play(0, 3);
+        assertThat(unit.isGridCompleteAndCorrect(), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void cannotPlayValueLargerThanDimension() {
+        String grid =
+                " 1 2 3 4" +
+                " 4 3 2 1" +
+                " 3 4 1 2" +
+                " 2 1 4 ."
+                ;
+        final StringReader reader = new StringReader(grid);
+        Grid unit = new Grid(reader);
+        unit.play(15, 5);
+    }
+
 }
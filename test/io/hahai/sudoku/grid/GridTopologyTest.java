@@ -0,0 +1,41 @@
+package io.hahai.sudoku.grid;
+
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public final class GridTopologyTest {
+
+    @Test public void isSharedPerDimension() {
+        assertThat(GridTopology.forDimension(9), is(sameInstance(GridTopology.forDimension(9))));
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void cannotCreateForNonSquareDimension() {
+        GridTopology.forDimension(8);
+    }
+
+    @Test public void unitsForCell40() {
+        GridTopology unit = GridTopology.forDimension(9);
+        assertThat(unit.rowOf(40), is(4));
+        assertThat(unit.columnOf(40), is(4));
+        assertThat(unit.blockOf(40), is(4));
+        assertThat(unit.row(4), is(new int[]{36, 37, 38, 39, 40, 41, 42, 43, 44}));
+        assertThat(unit.column(4), is(new int[]{4, 13, 22, 31, 40, 49, 58, 67, 76}));
+        assertThat(unit.block(4), is(new int[]{30, 31, 32, 39, 40, 41, 48, 49, 50}));
+    }
+
+    @Test public void peersForCell0() {
+        GridTopology unit = GridTopology.forDimension(9);
+        assertThat(unit.peers(0), is(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 18, 27, 36, 45, 54, 63, 72, 10, 11, 19, 20}));
+    }
+
+    @Test public void peerCountsForLargerGrids() {
+        assertThat(GridTopology.forDimension(4).peers(5).length, is(7));
+        assertThat(GridTopology.forDimension(16).peers(100).length, is(39));
+        assertThat(GridTopology.forDimension(25).peers(624).length, is(64));
+        assertThat(GridTopology.forDimension(25).units().length, is(75));
+    }
+
+}
@@ -1,12 +1,20 @@
 package io.hahai.sudoku.grid;
 
+import io.hahai.sudoku.solver.BacktrackingSolver;
+import io.hahai.sudoku.solver.ConstraintPropagator;
+import io.hahai.sudoku.solver.DancingLinksSolver;
 import io.hahai.sudoku.solver.MultiPassPlayWhenOneOptionSolver;
+import io.hahai.sudoku.solver.ParallelSearchSolver;
 import io.hahai.sudoku.solver.PlayWhenOneOptionSolver;
+import io.hahai.sudoku.solver.PropagatingSolver;
 import org.junit.Test;
 
 import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.Assert.assertThat;
 
 public final class SolversForGridTest {
@@ -73,4 +81,201 @@ public final class SolversForGridTest {
         assertThat(unit.getValueAt(63), is(9));
     }
 
+    @Test public void willSolveHardGridWithA_DancingLinksSolver() {
+        String grid =
+                " 8 . . . . . . . . " +
+                " . . 3 6 . . . . . " +
+                " . 7 . . 9 . 2 . . " +
+                " . 5 . . . 7 . . . " +
+                " . . . . 4 5 7 . . " +
+                " . . . 1 . . . 3 . " +
+                " . . 1 . . . . 6 8 " +
+                " . . 8 5 . . . 1 . " +
+                " . 9 . . . . 4 . . ";
+        Grid unit = new Grid(new StringReader(grid));
+        unit.applySolvers(new PlayWhenOneOptionSolver(), new DancingLinksSolver());
+        assertThat(unit.isGridCompleteAndCorrect(), is(true));
+        assertThat(unit.getValueAt(0), is(8));
+        assertThat(unit.getValueAt(1), is(1));
+        assertThat(unit.getValueAt(80), is(2));
+    }
+
+    @Test public void reusesA_DancingLinksSolver_AcrossGridsOfDifferentDimensions() {
+        DancingLinksSolver solver = new DancingLinksSolver();
+        Grid sixteen = new Grid(new StringReader(emptyGridOf(16)));
+        sixteen.applySolvers(solver);
+        assertThat(sixteen.isGridCompleteAndCorrect(), is(true));
+
+        Grid four = new Grid(new StringReader(" 1 . . . . . . 1 . . . . . . . . "));
+        four.applySolvers(solver);
+        assertThat(four.isGridCompleteAndCorrect(), is(true));
+    }
+
+    @Test public void willLeaveAnUnsolvableGridAloneWithA_DancingLinksSolver() {
+        String grid =
+                " . 1 4 2 6 8 7 5 . " +
+                " 5 8 2 1 7 9 4 3 6 " +
+                " 6 7 9 3 4 5 1 2 8 " +
+                " 1 2 7 8 3 4 9 6 5 " +
+                " 4 5 6 9 2 1 3 8 7 " +
+                " 8 9 3 6 5 7 2 1 4 " +
+                " 2 3 8 4 9 6 5 7 1 " +
+                " 9 6 5 7 1 2 8 4 3 " +
+                " 7 4 1 5 8 3 6 9 . ";
+        Grid unit = new Grid(new StringReader(grid));
+        unit.play(0, 9);
+        unit.applySolvers(new DancingLinksSolver());
+        assertThat(unit.isGridCompleteAndCorrect(), is(false));
+        assertThat(unit.getValueAt(8), is(0));
+        assertThat(unit.getValueAt(80), is(0));
+    }
+
+    @Test public void willSolveHardGridWithA_BacktrackingSolver_AndReportItsSearch() {
+        String grid =
+                " 8 . . . . . . . . " +
+                " . . 3 6 . . . . . " +
+                " . 7 . . 9 . 2 . . " +
+                " . 5 . . . 7 . . . " +
+                " . . . . 4 5 7 . . " +
+                " . . . 1 . . . 3 . " +
+                " . . 1 . . . . 6 8 " +
+                " . . 8 5 . . . 1 . " +
+                " . 9 . . . . 4 . . ";
+        Grid unit = new Grid(new StringReader(grid));
+        BacktrackingSolver solver = new BacktrackingSolver();
+        unit.applySolvers(solver);
+        assertThat(unit.isGridCompleteAndCorrect(), is(true));
+        assertThat(unit.getValueAt(1), is(1));
+        assertThat(unit.getValueAt(80), is(2));
+        assertThat(solver.nodes(), greaterThan(60L));
+        assertThat(solver.backtracks(), greaterThan(0L));
+    }
+
+    @Test public void willSolveEmpty16x16GridWithA_BacktrackingSolver() {
+        Grid unit = new Grid(new StringReader(emptyGridOf(16)));
+        unit.applySolvers(new BacktrackingSolver());
+        assertThat(unit.isGridCompleteAndCorrect(), is(true));
+    }
+
+    @Test public void propagationCutsTheSearchOfA_BacktrackingSolver() {
+        String grid =
+                " 8 . . . . . . . . " +
+                " . . 3 6 . . . . . " +
+                " . 7 . . 9 . 2 . . " +
+                " . 5 . . . 7 . . . " +
+                " . . . . 4 5 7 . . " +
+                " . . . 1 . . . 3 . " +
+                " . . 1 . . . . 6 8 " +
+                " . . 8 5 . . . 1 . " +
+                " . 9 . . . . 4 . . ";
+        BacktrackingSolver plain = new BacktrackingSolver();
+        new Grid(new StringReader(grid)).applySolvers(plain);
+        BacktrackingSolver propagating = new BacktrackingSolver(ConstraintPropagator.standard());
+        Grid unit = new Grid(new StringReader(grid));
+        unit.applySolvers(propagating);
+        assertThat(unit.isGridCompleteAndCorrect(), is(true));
+        assertThat(propagating.nodes(), lessThan(plain.nodes()));
+    }
+
+    @Test public void willSolveGridNeedingHiddenSinglesWithA_PropagatingSolver() {
+        String grid =
+                " . . 3 . 2 . 6 . . " +
+                " 9 . . 3 . 5 . . 1 " +
+                " . . 1 8 . 6 4 . . " +
+                " . . 8 1 . 2 9 . . " +
+                " 7 . . . . . . . 8 " +
+                " . . 6 7 . 8 2 . . " +
+                " . . 2 6 . 9 5 . . " +
+                " 8 . . 2 . 3 . . 9 " +
+                " . . 5 . 1 . 3 . . ";
+        Grid unit = new Grid(new StringReader(grid));
+        unit.applySolvers(new PropagatingSolver());
+        assertThat(unit.isGridCompleteAndCorrect(), is(true));
+        assertThat(unit.getValueAt(0), is(4));
+    }
+
+    @Test public void willSolveHardAndLargeGridsWithA_ParallelSearchSolver() {
+        String grid =
+                " 8 . . . . . . . . " +
+                " . . 3 6 . . . . . " +
+                " . 7 . . 9 . 2 . . " +
+                " . 5 . . . 7 . . . " +
+                " . . . . 4 5 7 . . " +
+                " . . . 1 . . . 3 . " +
+                " . . 1 . . . . 6 8 " +
+                " . . 8 5 . . . 1 . " +
+                " . 9 . . . . 4 . . ";
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Grid unit = new Grid(new StringReader(grid));
+            unit.applySolvers(new ParallelSearchSolver(pool, 3));
+            assertThat(unit.isGridCompleteAndCorrect(), is(true));
+            assertThat(unit.getValueAt(1), is(1));
+            assertThat(unit.getValueAt(80), is(2));
+
+            Grid sixteen = new Grid(new StringReader(emptyGridOf(16)));
+            sixteen.applySolvers(new ParallelSearchSolver(pool));
+            assertThat(sixteen.isGridCompleteAndCorrect(), is(true));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test public void willLeaveAnUnsolvableGridAloneWithA_ParallelSearchSolver() {
+        String grid =
+                " . 1 2 3 4 5 6 7 8 " +
+                " 9 . . . . . . . . " +
+                " . . . . . . . . . " +
+                " . . . . . . . . . " +
+                " . . . . . . . . . " +
+                " . . . . . . . . . " +
+                " . . . . . . . . . " +
+                " . . . . . . . . . " +
+                " . . . . . . . . . ";
+        Grid unit = new Grid(new StringReader(grid));
+        unit.applySolvers(new ParallelSearchSolver());
+        assertThat(unit.isGridCompleteAndCorrect(), is(false));
+        assertThat(unit.getValueAt(0), is(0));
+        assertThat(unit.getValueAt(80), is(0));
+    }
+
+    @Test public void countsTheSingleSolutionOfAHardGridWithoutChangingIt() {
+        String grid =
+                " 8 . . . . . . . . " +
+                " . . 3 6 . . . . . " +
+                " . 7 . . 9 . 2 . . " +
+                " . 5 . . . 7 . . . " +
+                " . . . . 4 5 7 . . " +
+                " . . . 1 . . . 3 . " +
+                " . . 1 . . . . 6 8 " +
+                " . . 8 5 . . . 1 . " +
+                " . 9 . . . . 4 . . ";
+        Grid unit = new Grid(new StringReader(grid));
+        assertThat(unit.countSolutions(10), is(1));
+        assertThat(unit.hasUniqueSolution(), is(true));
+        assertThat(unit.getValueAt(1), is(0));
+    }
+
+    @Test public void countsEvery4x4GridAndStopsAtTheLimit() {
+        Grid unit = new Grid(new StringReader(emptyGridOf(4)));
+        assertThat(unit.countSolutions(1000), is(288));
+        assertThat(unit.countSolutions(5), is(5));
+        assertThat(unit.hasUniqueSolution(), is(false));
+    }
+
+    @Test public void countsNoSolutionsForAContradictoryGrid() {
+        Grid unit = new Grid(new StringReader(" . 2 3 4 1 . . . . . . . . . . . "));
+        BacktrackingSolver solver = new BacktrackingSolver(ConstraintPropagator.standard());
+        assertThat(solver.countSolutions(unit, 2), is(0));
+        assertThat(new Grid(new StringReader(" 1 1 . . . . . . . . . . . . . . ")).countSolutions(2), is(0));
+    }
+
+    private static String emptyGridOf(int dimension) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < dimension * dimension; i++) {
+            builder.append(" .");
+        }
+        return builder.toString();
+    }
+
 }
@@ -0,0 +1,60 @@
+package io.hahai.sudoku.metrics;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public final class MetricsRegistryTest {
+
+    @Test public void histogramsCountLatenciesIntoPowerOfTwoBuckets() {
+        LatencyHistogram unit = new LatencyHistogram();
+        unit.record(500);
+        unit.record(TimeUnit.MICROSECONDS.toNanos(3));
+        unit.record(TimeUnit.MICROSECONDS.toNanos(4));
+        unit.record(TimeUnit.MICROSECONDS.toNanos(5));
+        unit.record(TimeUnit.HOURS.toNanos(1));
+        long[] counts = unit.cumulativeCounts();
+        assertThat(counts[0], is(1L));
+        assertThat(counts[1], is(1L));
+        assertThat(counts[2], is(3L));
+        assertThat(counts[3], is(4L));
+        assertThat(counts[LatencyHistogram.BUCKETS - 2], is(4L));
+        assertThat(counts[LatencyHistogram.BUCKETS - 1], is(5L));
+        assertThat(unit.count(), is(5L));
+    }
+
+    @Test public void writesOneLinePerValueSortedByName() throws Exception {
+        MetricsRegistry unit = new MetricsRegistry();
+        unit.counter("b_total").add(3);
+        unit.counter("a_total").increment();
+        unit.gauge("games", () -> 7);
+        unit.histogram("latency_micros{endpoint=\"/grid\"}").record(TimeUnit.MICROSECONDS.toNanos(2));
+        unit.solver("dancing-links").record(TimeUnit.MICROSECONDS.toNanos(10), 42, 0);
+
+        StringWriter out = new StringWriter();
+        unit.writeTo(out);
+        List<String> lines = Arrays.asList(out.toString().split("\n"));
+        assertThat(lines.get(0), is("a_total 1"));
+        assertThat(lines.get(1), is("b_total 3"));
+        assertThat(lines, hasItem("games 7"));
+        assertThat(lines, hasItem("latency_micros_bucket{endpoint=\"/grid\",le=\"1\"} 0"));
+        assertThat(lines, hasItem("latency_micros_bucket{endpoint=\"/grid\",le=\"2\"} 1"));
+        assertThat(lines, hasItem("latency_micros_bucket{endpoint=\"/grid\",le=\"+Inf\"} 1"));
+        assertThat(lines, hasItem("latency_micros_count{endpoint=\"/grid\"} 1"));
+        assertThat(lines, hasItem("latency_micros_sum{endpoint=\"/grid\"} 2"));
+        assertThat(lines, hasItem("sudoku_solver_nodes_total{solver=\"dancing-links\"} 42"));
+        assertThat(lines, hasItem("sudoku_solve_micros_count{solver=\"dancing-links\"} 1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class) public void refusesNamesThatWouldBreakTheOutput() {
+        new MetricsRegistry().counter("moves total");
+    }
+
+}
@@ -0,0 +1,74 @@
+package io.hahai.sudoku.rating;
+
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.grid.GridTopology;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+public final class DifficultyRaterTest {
+
+    private static final String NEARLY_FULL =
+            ".1426875.582179436679345128127834965456921387893657214238496571.65712843741583692";
+    private static final String EASY =
+            "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+    private static final String HARD =
+            "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..";
+
+    @Test public void aPuzzleOfNakedSinglesIsEasy() {
+        DifficultyRater unit = new DifficultyRater(GridTopology.forDimension(9));
+        Rating rating = unit.rate(new Grid(Grid.defaultGameReader()));
+        assertThat(rating.solvedByLogic(), is(true));
+        assertThat(rating.uses(Technique.NAKED_SINGLE), is(3));
+        assertThat(rating.uses(Technique.NAKED_PAIR), is(0));
+        assertThat(rating.tier(), is(Tier.EASY));
+        assertThat(rating.score(), is(3));
+    }
+
+    @Test public void aPuzzleLogicCannotFinishIsExpertAndScoresHigher() {
+        DifficultyRater unit = new DifficultyRater(GridTopology.forDimension(9));
+        Rating hard = unit.rate(new Grid(new StringReader(HARD)));
+        Rating easy = unit.rate(new Grid(new StringReader(NEARLY_FULL)));
+        assertThat(hard.solvedByLogic(), is(false));
+        assertThat(hard.tier(), is(Tier.EXPERT));
+        assertThat(hard.score(), greaterThan(easy.score()));
+        assertThat(unit.rate(new Grid(new StringReader(NEARLY_FULL))), is(easy));
+    }
+
+    @Test public void aPuzzleNeedingMoreDeductionsScoresHigher() {
+        DifficultyRater unit = new DifficultyRater(GridTopology.forDimension(9));
+        Rating easy = unit.rate(new Grid(new StringReader(EASY)));
+        Rating nearlyFull = unit.rate(new Grid(new StringReader(NEARLY_FULL)));
+        assertThat(easy.solvedByLogic(), is(true));
+        assertThat(easy.uses(Technique.NAKED_SINGLE) + easy.uses(Technique.HIDDEN_SINGLE), is(49));
+        assertThat(easy.score(), greaterThan(nearlyFull.score()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void clashingGivensCannotBeRated() {
+        int[] givens = new int[81];
+        givens[0] = 5;
+        givens[1] = 5;
+        new DifficultyRater(GridTopology.forDimension(9)).rate(givens);
+    }
+
+    @Test public void ratesALineFileInOrder() throws Exception {
+        StringWriter out = new StringWriter();
+        try (BatchRater unit = new BatchRater(GridTopology.forDimension(9), 2)) {
+            long rated = unit.rate(new StringReader(NEARLY_FULL + "\n\n" + "not a puzzle\n" + HARD + "\n"), out);
+            assertThat(rated, is(2L));
+        }
+        String[] lines = out.toString().split("\n");
+        assertThat(lines.length, is(3));
+        assertThat(lines[0], is(NEARLY_FULL + " 3 EASY"));
+        assertThat(lines[1], is("not a puzzle INVALID"));
+        assertThat(lines[2].startsWith(HARD), is(true));
+        assertThat(lines[2].endsWith("EXPERT"), is(true));
+    }
+
+}
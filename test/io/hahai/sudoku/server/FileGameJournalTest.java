@@ -0,0 +1,116 @@
+package io.hahai.sudoku.server;
+
+import io.hahai.sudoku.grid.Grid;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public final class FileGameJournalTest {
+
+    @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test public void gamesAreRebuiltFromTheLog() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        String kept;
+        String finished;
+        try (FileGameJournal journal = FileGameJournal.open(directory)) {
+            GameRegistry games = registry(journal);
+            journal.recover(games);
+            Game game = games.create();
+            game.play(0, 3, (grid, cells) -> cells);
+            game.play(8, 5, (grid, cells) -> cells);
+            game.play(8, 9, (grid, cells) -> cells);
+            kept = game.id();
+            finished = games.create().id();
+            games.remove(finished);
+            journal.flush();
+        }
+
+        try (FileGameJournal journal = FileGameJournal.open(directory)) {
+            GameRegistry games = registry(journal);
+            assertThat(journal.recover(games), is(1));
+            Game game = games.find(kept);
+            assertThat(game.withGrid(grid -> grid.getValueAt(0)), is(3));
+            assertThat(game.withGrid(grid -> grid.getValueAt(8)), is(9));
+            assertThat(game.withGrid(grid -> grid.cellPlayable(3)), is(false));
+            assertThat(games.find(finished), is(nullValue()));
+        }
+    }
+
+    @Test public void aSnapshotReplacesTheLogBeforeIt() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        String id;
+        try (FileGameJournal journal = FileGameJournal.open(directory)) {
+            GameRegistry games = registry(journal);
+            journal.recover(games);
+            Game game = games.create();
+            id = game.id();
+            game.play(0, 3, (grid, cells) -> cells);
+            journal.snapshot(games);
+            game.play(8, 9, (grid, cells) -> cells);
+            journal.flush();
+        }
+        assertThat(countFiles(directory, "snapshot-"), is(1L));
+        assertThat(countFiles(directory, "moves-"), is(1L));
+
+        try (FileGameJournal journal = FileGameJournal.open(directory)) {
+            GameRegistry games = registry(journal);
+            assertThat(journal.recover(games), is(1));
+            assertThat(games.find(id).withGrid(grid -> grid.getValueAt(0) * 10 + grid.getValueAt(8)), is(39));
+        }
+    }
+
+    @Test public void aTornRecordAtTheEndIsIgnored() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        String id;
+        try (FileGameJournal journal = FileGameJournal.open(directory)) {
+            GameRegistry games = registry(journal);
+            journal.recover(games);
+            Game game = games.create();
+            id = game.id();
+            game.play(0, 3, (grid, cells) -> cells);
+            journal.flush();
+        }
+        Files.write(directory.resolve("moves-1.log"), new byte[]{0, 0, 0, 20, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (FileGameJournal journal = FileGameJournal.open(directory)) {
+            GameRegistry games = registry(journal);
+            assertThat(journal.recover(games), is(1));
+            assertThat(games.find(id).withGrid(grid -> grid.getValueAt(0)), is(3));
+        }
+    }
+
+    @Test public void aMoveTheJournalRefusesIsTakenBack() throws Exception {
+        Game game;
+        try (FileGameJournal journal = FileGameJournal.open(folder.getRoot().toPath())) {
+            game = registry(journal).create();
+        }
+        try {
+            game.play(0, 3, (grid, cells) -> cells);
+            throw new AssertionError("Expected the closed journal to refuse the move");
+        } catch (IllegalStateException expected) {
+            assertThat(game.withGrid(grid -> grid.getValueAt(0)), is(0));
+        }
+    }
+
+    private static GameRegistry registry(GameJournal journal) {
+        return new GameRegistry(() -> new Grid(Grid.defaultGameReader()), 10, 1_000_000, journal);
+    }
+
+    private static long countFiles(Path directory, String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix)).count();
+        }
+    }
+
+}
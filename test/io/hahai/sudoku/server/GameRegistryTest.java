@@ -0,0 +1,90 @@
+package io.hahai.sudoku.server;
+
+import io.hahai.sudoku.grid.Grid;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public final class GameRegistryTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test public void eachGameHasItsOwnGrid() {
+        GameRegistry unit = registry(10, 1_000);
+        Game first = unit.create();
+        Game second = unit.create();
+        assertThat(first.id(), is(not(second.id())));
+        first.withGrid(grid -> grid.play(0, 3));
+        assertThat(second.withGrid(grid -> grid.getValueAt(0)), is(0));
+        assertThat(unit.find(first.id()), is(sameInstance(first)));
+        assertThat(unit.find("unknown"), is(nullValue()));
+        assertThat(unit.find(null), is(nullValue()));
+    }
+
+    @Test public void evictsGamesLeftIdle() {
+        GameRegistry unit = registry(10, 1_000);
+        Game idle = unit.create();
+        Game active = unit.create();
+        now.addAndGet(800);
+        unit.find(active.id());
+        now.addAndGet(800);
+        assertThat(unit.find(idle.id()), is(nullValue()));
+        assertThat(unit.find(active.id()), is(sameInstance(active)));
+        assertThat(unit.size(), is(1));
+    }
+
+    @Test public void evictsTheLeastRecentlyUsedGameAtTheLimit() {
+        GameRegistry unit = registry(2, 1_000_000);
+        Game first = unit.create();
+        now.incrementAndGet();
+        Game second = unit.create();
+        now.incrementAndGet();
+        unit.find(first.id());
+        now.incrementAndGet();
+        Game third = unit.create();
+        assertThat(unit.size(), is(2));
+        assertThat(unit.find(second.id()), is(nullValue()));
+        assertThat(unit.find(first.id()), is(sameInstance(first)));
+        assertThat(unit.find(third.id()), is(sameInstance(third)));
+    }
+
+    @Test public void concurrentCreationsNeverOvershootTheLimit() throws Exception {
+        GameRegistry unit = registry(50, 1_000_000);
+        ExecutorService creators = Executors.newFixedThreadPool(4);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int task = 0; task < 4; task++) {
+            tasks.add(() -> {
+                int largest = 0;
+                for (int i = 0; i < 500; i++) {
+                    Game game = unit.create();
+                    now.incrementAndGet();
+                    unit.find(game.id());
+                    largest = Math.max(largest, unit.size());
+                }
+                return largest;
+            });
+        }
+        for (Future<Integer> largest : creators.invokeAll(tasks)) {
+            assertThat(largest.get() <= 50, is(true));
+        }
+        creators.shutdown();
+        assertThat(unit.size(), is(50));
+    }
+
+    private GameRegistry registry(int maxGames, long idleMillis) {
+        return new GameRegistry(() -> new Grid(Grid.defaultGameReader()), maxGames, idleMillis, GameJournal.NONE, now::get);
+    }
+
+}
@@ -0,0 +1,140 @@
+package io.hahai.sudoku.server;
+
+import com.eclipsesource.json.JsonObject;
+import io.hahai.sudoku.grid.Cell;
+import io.hahai.sudoku.grid.Grid;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.hahai.sudoku.server.builder.HttpServerBuilder.ServletsBuilder.sb;
+import static io.hahai.sudoku.server.builder.HttpServerBuilder.builder;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public final class PlaySudokuServletTest {
+
+    private static final String EMPTY_GRID = new String(new char[81]).replace('\0', '.');
+
+    private GameRegistry games;
+    private Server server;
+    private String url;
+
+    @Before public void startServer() throws Exception {
+        games = new GameRegistry(() -> new Grid(new StringReader(EMPTY_GRID)));
+        server = builder().port(0).acceptors(1).selectors(1).threads(2, 16).idleTimeout(5_000).addToContext("/v1/sudoku/", sb().addServlet("/grid", new PlaySudokuServlet(games))).build();
+        server.start();
+        url = "http://localhost:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort() + "/v1/sudoku/grid";
+    }
+
+    @After public void stopServer() throws Exception {
+        server.stop();
+    }
+
+    @Test public void concurrentPlaysOnOneGameLeaveItConsistent() throws Exception {
+        String id = games.create().id();
+        ExecutorService players = Executors.newFixedThreadPool(8);
+        List<Callable<Integer>> moves = new ArrayList<>();
+        for (int player = 0; player < 8; player++) {
+            Random random = new Random(player);
+            moves.add(() -> {
+                int ok = 0;
+                for (int move = 0; move < 100; move++) {
+                    ok += play(id, random.nextInt(81), random.nextInt(10));
+                }
+                return ok;
+            });
+        }
+        int ok = 0;
+        for (Future<Integer> future : players.invokeAll(moves)) {
+            ok += future.get();
+        }
+        players.shutdown();
+        assertThat(ok, is(800));
+
+        games.find(id).withGrid(grid -> {
+            Grid replayed = new Grid(new StringReader(valuesOf(grid)));
+            List<Cell> expected = new ArrayList<>();
+            replayed.accept(expected::add);
+            grid.accept(cell -> assertThat(cell.isValid(), is(expected.get(cell.getIndex()).isValid())));
+            assertThat(grid.isGridCompleteAndCorrect(), is(replayed.isGridCompleteAndCorrect()));
+            return null;
+        });
+    }
+
+    @Test public void playsOnDifferentGamesDoNotMeet() throws Exception {
+        String first = games.create().id();
+        String second = games.create().id();
+        assertThat(play(first, 0, 5), is(1));
+        assertThat(games.find(first).withGrid(grid -> grid.getValueAt(0)), is(5));
+        assertThat(games.find(second).withGrid(grid -> grid.getValueAt(0)), is(0));
+    }
+
+    @Test public void rejectsBodiesThatAreNotMoves() throws Exception {
+        assertThat(post("not json").getResponseCode(), is(400));
+        String game = games.create().id();
+        assertThat(post(new JsonObject().add("game", game).add("index", 81).add("value", 1).toString()).getResponseCode(), is(400));
+        assertThat(post(new JsonObject().add("game", game).add("index", "a").add("value", 1).toString()).getResponseCode(), is(400));
+        assertThat(post(new JsonObject().add("game", game).add("index", 1.5).add("value", 1).toString()).getResponseCode(), is(400));
+    }
+
+    @Test public void onlyAGetNamingNoGameStartsOne() throws Exception {
+        HttpURLConnection first = (HttpURLConnection) new URL(url).openConnection();
+        assertThat(first.getResponseCode(), is(200));
+        assertThat(first.getHeaderField("Set-Cookie").startsWith(PlaySudokuServlet.GAME_COOKIE + "="), is(true));
+        assertThat(games.size(), is(1));
+
+        HttpURLConnection stale = (HttpURLConnection) new URL(url).openConnection();
+        stale.setRequestProperty("Cookie", PlaySudokuServlet.GAME_COOKIE + "=made-up");
+        assertThat(stale.getResponseCode(), is(410));
+        assertThat(stale.getHeaderField("Set-Cookie").contains("Expires="), is(true));
+        assertThat(((HttpURLConnection) new URL(url + "?game=made-up").openConnection()).getResponseCode(), is(410));
+        assertThat(post(new JsonObject().add("game", "made-up").add("index", 0).add("value", 1).toString()).getResponseCode(), is(410));
+        assertThat(post(new JsonObject().add("index", 0).add("value", 1).toString()).getResponseCode(), is(404));
+        assertThat(games.size(), is(1));
+    }
+
+    private HttpURLConnection post(String body) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return connection;
+    }
+
+    private int play(String game, int index, int value) throws Exception {
+        HttpURLConnection connection = post(new JsonObject().add("game", game).add("index", index).add("value", value).toString());
+        if (connection.getResponseCode() != 200) {
+            return 0;
+        }
+        try (Reader in = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+            return JsonObject.readFrom(in).get("cells").isArray() ? 1 : 0;
+        }
+    }
+
+    private static String valuesOf(Grid grid) {
+        StringBuilder builder = new StringBuilder();
+        grid.accept(cell -> builder.append(cell.getValue() == 0 ? '.' : (char) ('0' + cell.getValue())));
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,200 @@
+package io.hahai.sudoku.server;
+
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import io.hahai.sudoku.grid.Grid;
+import io.hahai.sudoku.metrics.MetricsRegistry;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.hahai.sudoku.server.builder.HttpServerBuilder.ServletsBuilder.sb;
+import static io.hahai.sudoku.server.builder.HttpServerBuilder.builder;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public final class SolveSudokuServletTest {
+
+    private static final String HARD =
+            "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..";
+    private static final String HARD_SOLVED =
+            "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+    private static final String EMPTY_25X25 = new String(new char[625]).replace('\0', '.');
+
+    private Server server;
+    private String root;
+    private String url;
+
+    @Before public void startServer() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        server = builder().port(0).metrics(metrics)
+                .addToContext("/v1/sudoku/", sb().addServlet("/solve", new SolveSudokuServlet(1, 1, 1_000, metrics))).build();
+        server.start();
+        root = "http://localhost:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+        url = root + "/v1/sudoku/solve";
+    }
+
+    @After public void stopServer() throws Exception {
+        server.stop();
+    }
+
+    @Test public void solvesWithEachSolver() throws Exception {
+        for (SolverChoice solver : SolverChoice.values()) {
+            String puzzle = HARD_SOLVED.substring(0, solver.ordinal() + 1) + HARD.substring(solver.ordinal() + 1);
+            HttpURLConnection connection = post(new JsonObject().add("puzzle", puzzle).add("solver", solver.key()));
+            assertThat(connection.getResponseCode(), is(200));
+            JsonObject reply = replyOf(connection);
+            assertThat(reply.get("cached").asBoolean(), is(false));
+            JsonArray solution = reply.get("solution").asArray();
+            StringBuilder solved = new StringBuilder();
+            solution.forEach(value -> solved.append(value.asInt()));
+            assertThat(new Grid(new StringReader(solved.toString())).isGridCompleteAndCorrect(), is(true));
+            assertThat(solution.get(0).asInt(), is(8));
+        }
+    }
+
+    @Test public void answersBadAndUnsolvablePuzzlesWithoutSolving() throws Exception {
+        assertThat(post(new JsonObject().add("puzzle", "1 1 . . . . . . . . . . . . . .")).getResponseCode(), is(400));
+        assertThat(post(new JsonObject().add("puzzle", HARD).add("solver", "guessing")).getResponseCode(), is(400));
+        assertThat(post(new JsonObject().add("puzzle", HARD).add("deadlineMillis", "soon")).getResponseCode(), is(400));
+        assertThat(post(new JsonObject().add("puzzle", "5 2 3 4 . . . . . . . . . . . .")).getResponseCode(), is(400));
+        assertThat(post(new JsonObject().add("puzzle", ". 2 3 4 1 . . . . . . . . . . .")).getResponseCode(), is(422));
+    }
+
+    @Test public void refusesBodiesOverTheCap() throws Exception {
+        String padding = new String(new char[JsonBodyReader.MAX_BODY_BYTES]).replace('\0', ' ');
+        JsonObject body = new JsonObject().add("puzzle", HARD).add("padding", padding);
+        assertThat(post(body).getResponseCode(), is(413));
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setChunkedStreamingMode(1024);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        assertThat(connection.getResponseCode(), is(413));
+        assertThat(post(new JsonObject().add("puzzle", HARD)).getResponseCode(), is(200));
+    }
+
+    @Test public void stopsASolveAtItsDeadline() throws Exception {
+        HttpURLConnection connection = post(new JsonObject().add("puzzle", EMPTY_25X25).add("solver", "backtracking").add("deadlineMillis", 100));
+        assertThat(connection.getResponseCode(), is(504));
+    }
+
+    @Test public void refusesSolvesOnceTheQueueIsFull() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        List<Callable<Integer>> requests = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            requests.add(() -> post(new JsonObject().add("puzzle", EMPTY_25X25).add("solver", "backtracking")).getResponseCode());
+        }
+        List<Integer> statuses = new ArrayList<>();
+        for (Future<Integer> status : clients.invokeAll(requests)) {
+            statuses.add(status.get());
+        }
+        clients.shutdown();
+        assertThat(statuses, hasItem(503));
+        assertThat(statuses, hasItem(504));
+    }
+
+    @Test public void theWorkerKeepsSolvingAfterAChangeOfSizeAndAStoppedSearch() throws Exception {
+        String empty4x4 = ". . . . . . . . . . . . . . . .";
+        for (SolverChoice solver : SolverChoice.values()) {
+            assertThat(post(new JsonObject().add("puzzle", empty4x4).add("solver", solver.key())).getResponseCode(), is(200));
+            String puzzle = HARD_SOLVED.substring(0, solver.ordinal() + 1) + HARD.substring(solver.ordinal() + 1);
+            assertThat(post(new JsonObject().add("puzzle", puzzle).add("solver", solver.key())).getResponseCode(), is(200));
+        }
+        assertThat(post(new JsonObject().add("puzzle", EMPTY_25X25).add("solver", "backtracking").add("deadlineMillis", 50))
+                           .getResponseCode(), is(504));
+        JsonObject reply = replyOf(post(new JsonObject().add("puzzle", HARD).add("solver", "backtracking")));
+        assertThat(reply.get("solution").asArray().get(1).asInt(), is(1));
+    }
+
+    @Test public void answersAnEquivalentPuzzleFromTheCache() throws Exception {
+        assertThat(replyOf(post(new JsonObject().add("puzzle", HARD))).get("cached").asBoolean(), is(false));
+        String relabelled = HARD.replace('8', 'x').replace('1', '8').replace('x', '1');
+        JsonObject reply = replyOf(post(new JsonObject().add("puzzle", relabelled)));
+        assertThat(reply.get("cached").asBoolean(), is(true));
+        assertThat(reply.get("solution").asArray().get(0).asInt(), is(1));
+        assertThat(metricsLines(), hasItem("sudoku_solution_cache_hits_total 1"));
+    }
+
+    @Test public void reportsEachSolveOnTheMetricsEndpoint() throws Exception {
+        assertThat(post(new JsonObject().add("puzzle", HARD).add("solver", "dancing-links")).getResponseCode(), is(200));
+        assertThat(post(new JsonObject().add("puzzle", ". 2 3 4 1 . . . . . . . . . . .")).getResponseCode(), is(422));
+
+        List<String> lines = metricsLinesOnceThereIs("sudoku_request_micros_count{endpoint=\"/v1/sudoku/solve\"} 2");
+        assertThat(lines, hasItem("sudoku_solves_total{solver=\"dancing-links\",outcome=\"solved\"} 1"));
+        assertThat(lines, hasItem("sudoku_solves_total{solver=\"propagating\",outcome=\"unsolvable\"} 1"));
+        assertThat(lines, hasItem("sudoku_solve_micros_count{solver=\"dancing-links\"} 1"));
+        assertThat(lines, hasItem("sudoku_request_micros_count{endpoint=\"/v1/sudoku/solve\"} 2"));
+        assertThat(lines, hasItem("sudoku_solution_cache_misses_total 2"));
+        assertThat(String.join("\n", lines), containsString("sudoku_solver_nodes_total{solver=\"dancing-links\"} "));
+    }
+
+    /**
+     * Request times are recorded once the async request completes, which can be just after the client has read
+     * its reply.
+     */
+    private List<String> metricsLinesOnceThereIs(String line) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        List<String> lines = metricsLines();
+        while (!lines.contains(line) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            lines = metricsLines();
+        }
+        return lines;
+    }
+
+    private List<String> metricsLines() throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(root + "/metrics").openConnection();
+        assertThat(connection.getResponseCode(), is(200));
+        String metrics;
+        try (Reader in = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+            StringBuilder text = new StringBuilder();
+            char[] buffer = new char[4096];
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                text.append(buffer, 0, read);
+            }
+            metrics = text.toString();
+        }
+        return Arrays.asList(metrics.split("\n"));
+    }
+
+    private HttpURLConnection post(JsonObject body) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return connection;
+    }
+
+    private static JsonObject replyOf(HttpURLConnection connection) throws Exception {
+        try (Reader in = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+            return JsonObject.readFrom(in);
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.Candidates;
+import io.hahai.sudoku.grid.GridTopology;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public final class CandidateStateTest {
+
+    @Test public void placingRemovesValueFromPeers() {
+        CandidateState unit = new CandidateState(GridTopology.forDimension(9));
+        assertThat(unit.place(0, 5), is(true));
+        assertThat(unit.value(0), is(5));
+        assertThat(unit.candidates(0), is(0));
+        assertThat(Candidates.contains(unit.candidates(8), 5), is(false));
+        assertThat(Candidates.contains(unit.candidates(72), 5), is(false));
+        assertThat(Candidates.contains(unit.candidates(20), 5), is(false));
+        assertThat(Candidates.contains(unit.candidates(40), 5), is(true));
+        assertThat(unit.emptyCells(), is(80));
+    }
+
+    @Test public void rollbackRestoresValuesAndCandidates() {
+        CandidateState unit = new CandidateState(GridTopology.forDimension(9));
+        unit.place(0, 5);
+        int mark = unit.mark();
+        unit.place(1, 6);
+        unit.eliminate(40, Candidates.bitFor(1) | Candidates.bitFor(2));
+        unit.rollback(mark);
+        assertThat(unit.value(1), is(0));
+        assertThat(unit.candidates(40), is(Candidates.allFor(9)));
+        assertThat(unit.candidates(2), is(Candidates.allFor(9) & ~Candidates.bitFor(5)));
+        assertThat(unit.emptyCells(), is(80));
+    }
+
+    @Test public void clashingGivensContradict() {
+        CandidateState unit = new CandidateState(GridTopology.forDimension(4));
+        assertThat(unit.load(new int[]{1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0}), is(false));
+        assertThat(unit.isContradicted(), is(true));
+        assertThat(unit.load(new int[]{1, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0}), is(true));
+        assertThat(unit.isContradicted(), is(false));
+    }
+
+    @Test public void mostConstrainedCellPrefersFewestCandidates() {
+        CandidateState unit = new CandidateState(GridTopology.forDimension(4));
+        unit.load(new int[]{1, 2, 0, 0, 0, 0, 0, 0, 3, 0, 0, 0, 0, 0, 0, 0});
+        assertThat(unit.mostConstrainedCell(), is(4));
+        assertThat(unit.candidates(4), is(Candidates.bitFor(4)));
+    }
+
+}
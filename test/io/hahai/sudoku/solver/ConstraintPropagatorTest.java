@@ -0,0 +1,99 @@
+package io.hahai.sudoku.solver;
+
+import io.hahai.sudoku.grid.Candidates;
+import io.hahai.sudoku.grid.GridTopology;
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public final class ConstraintPropagatorTest {
+
+    private static final String EASY =
+            "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+
+    private static final String SOLVED_EASY =
+            "483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+
+    @Test public void solvesAnEasyPuzzleWithoutGuessing() {
+        CandidateState state = stateOf(EASY);
+        ConstraintPropagator unit = ConstraintPropagator.standard();
+        assertThat(unit.propagate(state), is(true));
+        assertThat(state.isSolved(), is(true));
+        for (int i = 0; i < 81; i++) {
+            assertThat(state.value(i), is(SOLVED_EASY.charAt(i) - '0'));
+        }
+    }
+
+    @Test public void hiddenSinglePlacesTheOnlyPositionForAValue() {
+        CandidateState state = new CandidateState(GridTopology.forDimension(4));
+        state.load(new int[]{0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 1, 0, 0});
+        assertThat(new HiddenSingleStrategy().apply(state), is(true));
+        assertThat(state.value(0), is(1));
+    }
+
+    @Test public void nakedPairClearsTheRestOfTheUnit() {
+        CandidateState state = new CandidateState(GridTopology.forDimension(9));
+        int pair = Candidates.bitFor(1) | Candidates.bitFor(2);
+        state.eliminate(0, ~pair);
+        state.eliminate(1, ~pair);
+        assertThat(new NakedPairStrategy().apply(state), is(true));
+        assertThat(state.candidates(2) & pair, is(0));
+        assertThat(state.candidates(9) & pair, is(0));
+        assertThat(state.candidates(27) & pair, is(pair));
+    }
+
+    @Test public void hiddenPairClearsTheOtherCandidatesOfItsCells() {
+        CandidateState state = new CandidateState(GridTopology.forDimension(9));
+        int pair = Candidates.bitFor(8) | Candidates.bitFor(9);
+        for (int cell = 2; cell < 9; cell++) {
+            state.eliminate(cell, pair);
+        }
+        assertThat(new HiddenPairStrategy().apply(state), is(true));
+        assertThat(state.candidates(0), is(pair));
+        assertThat(state.candidates(1), is(pair));
+    }
+
+    @Test public void pointingPairClearsTheRowOutsideTheBlock() {
+        CandidateState state = new CandidateState(GridTopology.forDimension(9));
+        int five = Candidates.bitFor(5);
+        for (int cell : new int[]{9, 10, 11, 18, 19, 20}) {
+            state.eliminate(cell, five);
+        }
+        assertThat(new PointingPairStrategy().apply(state), is(true));
+        assertThat(state.candidates(3) & five, is(0));
+        assertThat(state.candidates(8) & five, is(0));
+        assertThat(state.candidates(1) & five, is(five));
+    }
+
+    @Test public void boxLineReductionClearsTheBlockOffTheRow() {
+        CandidateState state = new CandidateState(GridTopology.forDimension(9));
+        int five = Candidates.bitFor(5);
+        for (int cell = 3; cell < 9; cell++) {
+            state.eliminate(cell, five);
+        }
+        assertThat(new BoxLineReductionStrategy().apply(state), is(true));
+        assertThat(state.candidates(9) & five, is(0));
+        assertThat(state.candidates(20) & five, is(0));
+        assertThat(state.candidates(0) & five, is(five));
+    }
+
+    @Test public void reportsContradictions() {
+        CandidateState state = new CandidateState(GridTopology.forDimension(4));
+        state.load(new int[]{1, 2, 0, 0, 0, 0, 0, 0, 0, 0, 3, 0, 0, 0, 0, 4});
+        state.eliminate(2, Candidates.bitFor(4));
+        assertThat(ConstraintPropagator.standard().propagate(state), is(false));
+    }
+
+    private static CandidateState stateOf(String puzzle) {
+        int[] values = new int[puzzle.length()];
+        for (int i = 0; i < values.length; i++) {
+            char c = puzzle.charAt(i);
+            values[i] = c == '.' ? 0 : c - '0';
+        }
+        CandidateState state = new CandidateState(GridTopology.forDimension(9));
+        state.load(values);
+        return state;
+    }
+
+}